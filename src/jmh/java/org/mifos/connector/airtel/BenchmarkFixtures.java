@@ -0,0 +1,160 @@
+package org.mifos.connector.airtel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.camunda.zeebe.client.ZeebeClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
+import org.mifos.connector.airtel.camel.processor.CollectionResponseProcessor;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineGuard;
+import org.mifos.connector.airtel.camel.routes.AirtelMoneyRouteBuilder;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.store.AccessTokenStore;
+import org.mifos.connector.airtel.store.CallbackDedupeStore;
+import org.mifos.connector.airtel.store.SettlementTimeStore;
+import org.mifos.connector.airtel.store.TransactionStateStore;
+import org.mifos.connector.airtel.zeebe.ZeebeMetrics;
+
+/**
+ * Builds the connector components used by the benchmarks, configured as in application.yml.
+ */
+public final class BenchmarkFixtures {
+
+    public static final Map<String, String> COUNTRY_CODES =
+        Map.of("rwf", "RW", "ugx", "UG", "kes", "KE");
+
+    public static final String CHANNEL_REQUEST = "{\"payer\":{\"partyIdInfo\":{"
+        + "\"partyIdType\":\"MSISDN\",\"partyIdentifier\":\"250730000000\"}},"
+        + "\"payee\":{\"partyIdInfo\":{\"partyIdType\":\"ACCOUNTID\",\"partyIdentifier\":"
+        + "\"60649568\"}},\"amount\":{\"amount\":\"20\",\"currency\":\"RWF\"}}";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Creates the Airtel properties pointing at the given base URL.
+     *
+     * @param baseUrl Airtel base URL
+     * @return {@link AirtelProps}
+     */
+    public static AirtelProps airtelProps(String baseUrl) {
+        AirtelProps.Api api = new AirtelProps.Api();
+        api.setBaseUrl(baseUrl);
+        api.setAuthEndpoint("/auth/oauth2/token");
+        api.setCollectionEndpoint("/merchant/v1/payments/");
+        api.setStatusEndpoint("/standard/v1/payments");
+
+        AirtelProps.Callback callback = new AirtelProps.Callback();
+        callback.setQueueSize(10000);
+        callback.setConsumers(1);
+        callback.setDedupeMaxSize(100000);
+        callback.setDedupeTtl(Duration.ofHours(1));
+        callback.setMaxRedeliveries(5);
+        callback.setRedeliveryDelay(Duration.ofSeconds(1));
+
+        AirtelProps.TransactionState transactionState = new AirtelProps.TransactionState();
+        transactionState.setMaxSize(100000);
+        transactionState.setTtl(Duration.ofHours(1));
+
+        AirtelProps.Idempotency idempotency = new AirtelProps.Idempotency();
+        idempotency.setMaxSize(100000);
+        idempotency.setTtl(Duration.ofHours(1));
+
+        AirtelProps.Resilience resilience = new AirtelProps.Resilience();
+        resilience.setFailureRateThreshold(50);
+        resilience.setSlidingWindowSize(20);
+        resilience.setMinimumNumberOfCalls(10);
+        resilience.setWaitDurationInOpenState(Duration.ofSeconds(30));
+        resilience.setPermittedCallsInHalfOpenState(3);
+        resilience.setMaxConcurrentCalls(40);
+        resilience.setMaxWaitDuration(Duration.ZERO);
+        resilience.setRetryBackoff(Duration.ofSeconds(30));
+
+        // No rate limits, so that benchmarks measure the connector rather than the Airtel quota
+        AirtelProps.RateLimit rateLimit = new AirtelProps.RateLimit();
+        rateLimit.setLimitRefreshPeriod(Duration.ofSeconds(1));
+        rateLimit.setMaxWait(Duration.ZERO);
+        rateLimit.setLimits(Map.of());
+
+        AirtelProps.Poll poll = new AirtelProps.Poll();
+        poll.setAdaptive(true);
+        poll.setPercentile(0.5);
+        poll.setJitter(0.2);
+        poll.setMinDelay(Duration.ofSeconds(5));
+        poll.setMaxDelay(Duration.ofMinutes(10));
+        poll.setMinSamples(20);
+        poll.setWindowSize(500);
+
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setApi(api);
+        airtelProps.setCredentials(new AirtelProps.Credentials());
+        airtelProps.setMaxRetryCount(3);
+        airtelProps.setTimeout(6000);
+        airtelProps.setTokenRefreshSkew(Duration.ofSeconds(60));
+        airtelProps.setTokenRefreshFailureBackoff(Duration.ofSeconds(2));
+        airtelProps.setCallback(callback);
+        airtelProps.setTransactionState(transactionState);
+        airtelProps.setIdempotency(idempotency);
+        airtelProps.setResilience(resilience);
+        airtelProps.setRateLimit(rateLimit);
+        airtelProps.setPoll(poll);
+        airtelProps.setVariables(new AirtelProps.Variables());
+        AirtelProps.Deadline deadline = new AirtelProps.Deadline();
+        deadline.setReserve(Duration.ofSeconds(1));
+        deadline.setMinBudget(Duration.ofMillis(500));
+        airtelProps.setDeadline(deadline);
+        return airtelProps;
+    }
+
+    /**
+     * Creates a collection response processor publishing to the given zeebe client.
+     *
+     * @param zeebeClient         {@link ZeebeClient}
+     * @param settlementTimeStore {@link SettlementTimeStore} picking the poll timers
+     * @return {@link CollectionResponseProcessor}
+     */
+    public static CollectionResponseProcessor collectionResponseProcessor(
+        ZeebeClient zeebeClient, SettlementTimeStore settlementTimeStore) {
+        return new CollectionResponseProcessor(zeebeClient, new ObjectMapper(), airtelProps(),
+            new ZeebeMetrics(new SimpleMeterRegistry()), settlementTimeStore);
+    }
+
+    /**
+     * Creates a camel context holding the Airtel routes. The context isn't started, so more
+     * routes can be added to it.
+     *
+     * @param airtelProps {@link AirtelProps}
+     * @param zeebeClient {@link ZeebeClient} used to publish transaction outcomes
+     * @return {@link CamelContext}
+     * @throws Exception if the routes can't be added
+     */
+    public static CamelContext airtelCamelContext(AirtelProps airtelProps,
+                                                  ZeebeClient zeebeClient) throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CamelContext camelContext = new DefaultCamelContext();
+        camelContext.getRestConfiguration().setComponent("undertow");
+        camelContext.getRestConfiguration().setPort(freePort());
+        AccessTokenStore accessTokenStore = new AccessTokenStore(
+            camelContext.createProducerTemplate(), airtelProps, meterRegistry);
+        SettlementTimeStore settlementTimeStore = new SettlementTimeStore(airtelProps);
+        camelContext.addRoutes(new AirtelMoneyRouteBuilder(accessTokenStore, airtelProps,
+            collectionResponseProcessor(zeebeClient, settlementTimeStore),
+            new CallbackDedupeStore(airtelProps, meterRegistry),
+            new TransactionStateStore(airtelProps), meterRegistry,
+            new AirtelApiGuard(airtelProps, accessTokenStore, meterRegistry),
+            settlementTimeStore, new JobDeadlineGuard(airtelProps, meterRegistry)));
+        return camelContext;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.mifos.connector.airtel;
+
+import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.ZeebeFuture;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ZeebeClient} that accepts every command and completes it immediately, so benchmarks
+ * measure the connector code and not the broker. Command builders are cached per type, so a
+ * command chain doesn't allocate beyond what the connector itself allocates.
+ */
+public final class ZeebeClientStub implements InvocationHandler {
+
+    private static final ZeebeClientStub HANDLER = new ZeebeClientStub();
+    private static final ZeebeFuture<Object> COMPLETED = new CompletedFuture();
+    private static final ClassValue<Object> PROXIES = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, HANDLER);
+        }
+    };
+
+    private ZeebeClientStub() {
+    }
+
+    public static ZeebeClient create() {
+        return (ZeebeClient) PROXIES.get(ZeebeClient.class);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "ZeebeClientStub";
+            };
+        }
+        if ("send".equals(method.getName())) {
+            return COMPLETED;
+        }
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isInstance(proxy)) {
+            return proxy;
+        }
+        if (returnType.isInterface()) {
+            return PROXIES.get(returnType);
+        }
+        return null;
+    }
+
+    /**
+     * Future that has already completed without a response.
+     */
+    private static final class CompletedFuture extends CompletableFuture<Object>
+        implements ZeebeFuture<Object> {
+
+        CompletedFuture() {
+            complete(null);
+        }
+
+        @Override
+        public Object join(long timeout, TimeUnit unit) {
+            return join();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.mifos.connector.airtel.camel.processor;
+
+import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_TRANSACTION_PENDING;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.LAST_RESPONSE_BODY;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.AIRTEL_MONEY_ID;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.SERVER_TRANSACTION_STATUS_RETRY_COUNT;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TIMER;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_FAILED;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_ID;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ZEEBE_ELEMENT_INSTANCE_KEY;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.mifos.connector.airtel.BenchmarkFixtures;
+import org.mifos.connector.airtel.ZeebeClientStub;
+import org.mifos.connector.airtel.store.SettlementTimeStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Turns a transaction status outcome into zeebe variables and sends them to a stub zeebe client:
+ * a publish for a settled transaction and a set variables command for a pending one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CollectionResponseProcessorBenchmark {
+
+    private static final String STATUS_RESPONSE = "{\"data\":{\"transaction\":{\"id\":"
+        + "\"oaf-b1f4a0c2\",\"status\":\"TS\",\"airtel_money_id\":\"MP210603.1234.L06941\"}},"
+        + "\"status\":{\"code\":\"200\",\"message\":\"SUCCESS\",\"response_code\":"
+        + "\"DP00800001001\",\"success\":true}}";
+
+    @Param({"settled", "pending"})
+    private String outcome;
+
+    private CamelContext camelContext;
+    private CollectionResponseProcessor collectionResponseProcessor;
+
+    @Setup
+    public void setUp() {
+        camelContext = new DefaultCamelContext();
+        collectionResponseProcessor = BenchmarkFixtures.collectionResponseProcessor(
+            ZeebeClientStub.create(), new SettlementTimeStore(
+                BenchmarkFixtures.airtelProps("http://localhost")));
+    }
+
+    /**
+     * Processes one transaction status outcome.
+     *
+     * @return the processed exchange
+     * @throws Exception if processing fails
+     */
+    @Benchmark
+    public Exchange process() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(TRANSACTION_ID, "b1f4a0c2");
+        exchange.setProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT, 1);
+        exchange.setProperty(ZEEBE_ELEMENT_INSTANCE_KEY, 2251799813685249L);
+        exchange.setProperty(TIMER, "PT45S");
+        exchange.setProperty(LAST_RESPONSE_BODY, STATUS_RESPONSE);
+        exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+        if ("pending".equals(outcome)) {
+            exchange.setProperty(IS_TRANSACTION_PENDING, true);
+        } else {
+            exchange.setProperty(TRANSACTION_FAILED, false);
+            exchange.setProperty(AIRTEL_MONEY_ID, "MP210603.1234.L06941");
+        }
+        collectionResponseProcessor.process(exchange);
+        return exchange;
+    }
+}
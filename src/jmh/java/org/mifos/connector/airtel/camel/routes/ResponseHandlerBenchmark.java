@@ -0,0 +1,113 @@
+package org.mifos.connector.airtel.camel.routes;
+
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.SERVER_TRANSACTION_STATUS_RETRY_COUNT;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TIMER;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_ID;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ZEEBE_ELEMENT_INSTANCE_KEY;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.mifos.connector.airtel.BenchmarkFixtures;
+import org.mifos.connector.airtel.ZeebeClientStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs Airtel responses through the collection and transaction status response handler routes,
+ * from the raw HTTP body to the zeebe command sent to a stub zeebe client. Bodies are handed over
+ * as the byte arrays the HTTP routes read responses into, so the {@code gc.alloc.rate.norm} of
+ * the gc profiler shows what parsing and publishing a response allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ResponseHandlerBenchmark {
+
+    private static final byte[] COLLECTION_RESPONSE = ("{\"data\":{\"transaction\":{\"id\":"
+        + "\"oaf-b1f4a0c2\",\"status\":\"Success.\"}},\"status\":{\"code\":\"200\","
+        + "\"message\":\"SUCCESS\",\"result_code\":\"ESB000010\",\"response_code\":"
+        + "\"DP00800001006\",\"success\":true}}").getBytes(StandardCharsets.UTF_8);
+
+    private static final String STATUS_RESPONSE = "{\"data\":{\"transaction\":{\"id\":"
+        + "\"oaf-b1f4a0c2\",\"status\":\"%s\",\"airtel_money_id\":\"MP210603.1234.L06941\","
+        + "\"message\":\"success\"}},\"status\":{\"code\":\"200\",\"message\":\"SUCCESS\","
+        + "\"result_code\":\"ESB000010\",\"response_code\":\"DP00800001001\","
+        + "\"success\":true}}";
+
+    @Param({"TS", "TIP", "TF"})
+    private String transactionStatus;
+
+    private CamelContext camelContext;
+    private ProducerTemplate producerTemplate;
+    private byte[] statusResponse;
+    private long nextId;
+
+    /**
+     * Starts a camel context holding the Airtel routes.
+     *
+     * @throws Exception if the camel context can't be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        camelContext = BenchmarkFixtures.airtelCamelContext(
+            BenchmarkFixtures.airtelProps("http://localhost"), ZeebeClientStub.create());
+        camelContext.start();
+        producerTemplate = camelContext.createProducerTemplate();
+        statusResponse = String.format(STATUS_RESPONSE, transactionStatus)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        camelContext.stop();
+    }
+
+    /**
+     * Handles a successful collection response.
+     *
+     * @return the processed exchange
+     */
+    @Benchmark
+    public Exchange collectionResponse() {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+        exchange.getIn().setBody(COLLECTION_RESPONSE);
+        return producerTemplate.send("direct:collection-response-handler", exchange);
+    }
+
+    /**
+     * Handles a transaction status response, which publishes the outcome of a settled
+     * transaction or updates the poll timer of a pending one.
+     *
+     * @return the processed exchange
+     */
+    @Benchmark
+    public Exchange transactionStatusResponse() {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(TRANSACTION_ID, "b1f4a0c2-" + nextId++);
+        exchange.setProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT, 1);
+        exchange.setProperty(ZEEBE_ELEMENT_INSTANCE_KEY, 2251799813685249L);
+        exchange.setProperty(TIMER, "PT45S");
+        exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+        exchange.getIn().setBody(statusResponse);
+        return producerTemplate.send("direct:transaction-status-response-handler", exchange);
+    }
+}
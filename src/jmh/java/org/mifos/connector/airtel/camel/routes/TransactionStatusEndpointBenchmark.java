@@ -0,0 +1,132 @@
+package org.mifos.connector.airtel.camel.routes;
+
+import static org.mifos.connector.airtel.camel.config.CamelProperties.ACCESS_TOKEN;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_TRANSACTION_ID;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.CURRENCY;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.support.DefaultExchange;
+import org.mifos.connector.airtel.BenchmarkFixtures;
+import org.mifos.connector.airtel.ZeebeClientStub;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.util.ConnectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calls the Airtel transaction status route against a local stub with a new transaction ID on
+ * every invocation, cycling through {@link #DISTINCT_IDS} IDs. The {@code dynamic} mode replays
+ * the previous per-transaction {@code toD} URI for comparison. The number of endpoints in the camel
+ * context is printed after every iteration and should stay flat for the {@code fixed} mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 20)
+@Fork(1)
+public class TransactionStatusEndpointBenchmark {
+
+    private static final int DISTINCT_IDS = 100_000;
+    private static final byte[] RESPONSE = ("{\"data\":{\"transaction\":{\"id\":\"1\","
+        + "\"status\":\"TIP\"}},\"status\":{\"success\":true}}").getBytes(StandardCharsets.UTF_8);
+
+    @Param({"fixed", "dynamic"})
+    private String mode;
+
+    private HttpServer airtelStub;
+    private CamelContext camelContext;
+    private ProducerTemplate producerTemplate;
+    private String endpointUri;
+    private int nextId;
+
+    /**
+     * Starts the Airtel stub and a camel context holding the Airtel routes.
+     *
+     * @throws Exception if the stub or the camel context can't be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        airtelStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        airtelStub.setExecutor(Executors.newFixedThreadPool(4));
+        airtelStub.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(RESPONSE);
+            }
+        });
+        airtelStub.start();
+
+        AirtelProps airtelProps = BenchmarkFixtures
+            .airtelProps("http://localhost:" + airtelStub.getAddress().getPort());
+        AirtelProps.Api api = airtelProps.getApi();
+        camelContext = BenchmarkFixtures.airtelCamelContext(airtelProps,
+            ZeebeClientStub.create());
+        producerTemplate = camelContext.createProducerTemplate();
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:dynamic-transaction-status")
+                    .removeHeader("*")
+                    .setHeader(Exchange.HTTP_METHOD, constant("GET"))
+                    .toD(api.getBaseUrl() + api.getStatusEndpoint()
+                        + "/${exchangeProperty." + COLLECTION_TRANSACTION_ID + "}"
+                        + "?bridgeEndpoint=true&throwExceptionOnFailure=false&"
+                        + ConnectionUtils.getConnectionTimeoutDsl(airtelProps.getTimeout()));
+            }
+        });
+        camelContext.start();
+        endpointUri = "fixed".equals(mode) ? "direct:airtel-transaction-status"
+            : "direct:dynamic-transaction-status";
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportEndpoints() {
+        System.out.printf("%n[%s] endpoints after %d calls: %d%n", mode, nextId,
+            camelContext.getEndpoints().size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        camelContext.stop();
+        airtelStub.stop(0);
+    }
+
+    /**
+     * Gets the status of the next transaction ID.
+     *
+     * @return the HTTP response code
+     */
+    @Benchmark
+    public Object transactionStatus() {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(COLLECTION_TRANSACTION_ID, "oaf-" + (nextId++ % DISTINCT_IDS));
+        exchange.setProperty(ACCESS_TOKEN, "token");
+        exchange.setProperty(COUNTRY, "RW");
+        exchange.setProperty(CURRENCY, "RWF");
+        return producerTemplate.send(endpointUri, exchange).getIn()
+            .getHeader(Exchange.HTTP_RESPONSE_CODE);
+    }
+}
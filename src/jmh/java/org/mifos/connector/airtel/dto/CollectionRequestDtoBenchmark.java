@@ -0,0 +1,32 @@
+package org.mifos.connector.airtel.dto;
+
+import java.util.concurrent.TimeUnit;
+import org.mifos.connector.airtel.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the collection request from the channel request variable, as both job workers do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CollectionRequestDtoBenchmark {
+
+    @Benchmark
+    public CollectionRequestDto fromChannelRequest() {
+        return CollectionRequestDto.fromChannelRequest(
+            BenchmarkFixtures.CHANNEL_REQUEST, "b1f4a0c2-7d1e-4c7b-9a51",
+            BenchmarkFixtures.COUNTRY_CODES, "oaf-");
+    }
+}
@@ -0,0 +1,80 @@
+package org.mifos.connector.airtel.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.mifos.connector.airtel.BenchmarkFixtures;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.dto.AuthResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the access token from many threads at once. With a one second token lifetime and no
+ * refresh skew every token expires while being read, so the benchmark also covers callers
+ * waiting on a refresh; the auth route is stubbed to answer without any network call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class AccessTokenStoreBenchmark {
+
+    @Param({"3600", "1"})
+    private int tokenLifetime;
+
+    private CamelContext camelContext;
+    private AccessTokenStore accessTokenStore;
+
+    /**
+     * Starts a camel context with a stub auth route and creates the store.
+     *
+     * @throws Exception if the camel context can't be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:get-access-token")
+                    .process(exchange -> exchange.getIn()
+                        .setBody(new AuthResponseDto("token", tokenLifetime, "Bearer")));
+            }
+        });
+        camelContext.start();
+        AirtelProps airtelProps = BenchmarkFixtures.airtelProps("http://localhost");
+        airtelProps.setTokenRefreshSkew(Duration.ZERO);
+        accessTokenStore = new AccessTokenStore(camelContext.createProducerTemplate(),
+            airtelProps, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        accessTokenStore.shutdown();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public String getAccessToken() {
+        return accessTokenStore.getAccessToken("RW");
+    }
+}
@@ -0,0 +1,104 @@
+package org.mifos.connector.airtel.zeebe;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.engine.DefaultProducerTemplate;
+import org.mifos.connector.airtel.util.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares running jobs on the fixed pool of 100 job worker threads with running them on virtual
+ * threads, the way {@link ZeebeWorkers} hands exchanges to its producer template. Each operation
+ * starts a batch of jobs that all block for the duration of an Airtel call and waits for the
+ * whole batch, so the score is the time it takes to drain that many in-flight jobs.
+ *
+ * <p>The {@code virtual} executor needs the benchmarks to run on Java 21 or newer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class JobExecutionBenchmark {
+
+    private static final int JOB_WORKER_THREADS = 100;
+
+    @Param({"fixed", "virtual"})
+    private String executor;
+
+    @Param({"1000", "10000"})
+    private int inFlightJobs;
+
+    @Param({"50"})
+    private long airtelLatencyMillis;
+
+    private CamelContext camelContext;
+    private ExecutorService executorService;
+    private DefaultProducerTemplate producerTemplate;
+
+    /**
+     * Starts a camel context with a route standing in for a blocking Airtel call.
+     *
+     * @throws Exception if the camel context can't be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:airtel-call")
+                    .process(exchange -> Thread.sleep(airtelLatencyMillis));
+            }
+        });
+        camelContext.start();
+        executorService = "virtual".equals(executor)
+            ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(JOB_WORKER_THREADS);
+        producerTemplate = new DefaultProducerTemplate(camelContext, executorService);
+        producerTemplate.start();
+    }
+
+    /**
+     * Stops the producer template, its executor and the camel context.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producerTemplate.stop();
+        executorService.shutdownNow();
+        camelContext.stop();
+    }
+
+    /**
+     * Runs a batch of in-flight jobs to completion.
+     *
+     * @return the number of completed jobs
+     */
+    @Benchmark
+    public int drainInFlightJobs() {
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[inFlightJobs];
+        for (int i = 0; i < inFlightJobs; i++) {
+            jobs[i] = producerTemplate.asyncSend("direct:airtel-call", exchange -> { });
+        }
+        CompletableFuture.allOf(jobs).join();
+        return jobs.length;
+    }
+}
@@ -1,9 +1,14 @@
 package org.mifos.connector.airtel.camel.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.HashMap;
 import org.apache.camel.CamelContext;
+import org.apache.camel.component.http.HttpClientConfigurer;
+import org.apache.camel.component.http.HttpComponent;
+import org.apache.camel.component.micrometer.routepolicy.MicrometerRoutePolicyFactory;
 import org.apache.camel.spi.RestConfiguration;
 import org.apache.camel.spring.boot.CamelContextConfiguration;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,10 +25,15 @@ public class CamelContextConfig {
     /**
      * Configures the camel context to be used.
      *
+     * @param airtelConnectionManager    connection pool shared by the Airtel HTTP calls
+     * @param airtelHttpClientConfigurer {@link HttpClientConfigurer} for the Airtel HTTP calls
+     * @param meterRegistry              {@link MeterRegistry} the route timers are registered in
      * @return {@link CamelContextConfiguration}
      */
     @Bean
-    CamelContextConfiguration contextConfiguration() {
+    CamelContextConfiguration contextConfiguration(
+        HttpClientConnectionManager airtelConnectionManager,
+        HttpClientConfigurer airtelHttpClientConfigurer, MeterRegistry meterRegistry) {
         return new CamelContextConfiguration() {
             @Override
             public void beforeApplicationStart(CamelContext camelContext) {
@@ -32,6 +42,12 @@ public class CamelContextConfig {
                 camelContext.setStreamCaching(true);
                 camelContext.disableJMX();
 
+                // Times every route, tagged by route ID, in the application meter registry
+                MicrometerRoutePolicyFactory routePolicyFactory =
+                    new MicrometerRoutePolicyFactory();
+                routePolicyFactory.setMeterRegistry(meterRegistry);
+                camelContext.addRoutePolicyFactory(routePolicyFactory);
+
                 RestConfiguration rest = new RestConfiguration();
                 camelContext.setRestConfiguration(rest);
                 rest.setComponent("undertow");
@@ -41,6 +57,12 @@ public class CamelContextConfig {
                 rest.setDataFormatProperties(new HashMap<>());
                 rest.getDataFormatProperties().put("prettyPrint", "true");
                 rest.setScheme("http");
+
+                for (String scheme : new String[] {"http", "https"}) {
+                    HttpComponent http = camelContext.getComponent(scheme, HttpComponent.class);
+                    http.setClientConnectionManager(airtelConnectionManager);
+                    http.setHttpClientConfigurer(airtelHttpClientConfigurer);
+                }
             }
 
             @Override
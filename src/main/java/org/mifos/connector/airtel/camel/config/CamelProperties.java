@@ -12,6 +12,7 @@ public class CamelProperties {
     public static final String DEPLOYED_PROCESS = "deployedProcess";
     public static final String COLLECTION_REQUEST_BODY = "collectionRequestBody";
     public static final String ACCESS_TOKEN = "accessToken";
+    public static final String AUTH_CREDENTIALS = "authCredentials";
     public static final String COLLECTION_RESPONSE_BODY = "mpesaApiResponse";
     public static final String IS_RETRY_EXCEEDED = "isRetryExceeded";
     public static final String IS_TRANSACTION_PENDING = "isTransactionPending";
@@ -19,4 +20,8 @@ public class CamelProperties {
     public static final String COUNTRY = "country";
     public static final String CURRENCY = "currency";
     public static final String COLLECTION_TRANSACTION_ID = "collectionTransactionId";
+    public static final String MESSAGE_ID = "messageId";
+    public static final String API_PERMIT = "apiPermit";
+    public static final String IS_SCHEDULED_POLL = "isScheduledPoll";
+    public static final String JOB_DEADLINE = "jobDeadline";
 }
@@ -0,0 +1,116 @@
+package org.mifos.connector.airtel.camel.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import org.apache.camel.component.http.HttpClientConfigurer;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineGuard;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the HTTP client used to call the Airtel API.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Creates the connection pool shared by the auth, collection and status calls, and exposes
+     * its usage as metrics.
+     *
+     * @param airtelProps   {@link AirtelProps}
+     * @param meterRegistry {@link MeterRegistry}
+     * @return {@link PoolingHttpClientConnectionManager}
+     * @throws GeneralSecurityException if the TLS context can't be created
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager airtelConnectionManager(
+        AirtelProps airtelProps, MeterRegistry meterRegistry) throws GeneralSecurityException {
+        AirtelProps.Http http = airtelProps.getHttp();
+
+        // Cache TLS sessions so reconnects to Airtel resume the session instead of a full
+        // handshake
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, null, null);
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(http.getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout((int) http.getTlsSessionTimeout().toSeconds());
+
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder
+            .<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(sslContext))
+            .build();
+        PoolingHttpClientConnectionManager connectionManager =
+            new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnectionsPerRoute());
+
+        registerPoolGauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, connectionManager, "max", PoolStats::getMax);
+        return connectionManager;
+    }
+
+    /**
+     * Periodically closes expired connections and connections that have been idle for longer
+     * than the configured timeout.
+     *
+     * @param airtelConnectionManager {@link PoolingHttpClientConnectionManager}
+     * @param airtelProps             {@link AirtelProps}
+     * @return {@link IdleConnectionEvictor}
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public IdleConnectionEvictor airtelIdleConnectionEvictor(
+        PoolingHttpClientConnectionManager airtelConnectionManager, AirtelProps airtelProps) {
+        long idleTimeout = airtelProps.getHttp().getIdleEvictionTimeout().toMillis();
+        return new IdleConnectionEvictor(airtelConnectionManager, idleTimeout,
+            TimeUnit.MILLISECONDS, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Configures the HTTP clients created by camel to share the connection pool and keep
+     * connections alive for as long as Airtel allows, capped by the configured keep alive.
+     * Requests carrying a timeout capped to the job deadline have it applied per request.
+     *
+     * @param airtelProps {@link AirtelProps}
+     * @return {@link HttpClientConfigurer}
+     */
+    @Bean
+    public HttpClientConfigurer airtelHttpClientConfigurer(AirtelProps airtelProps) {
+        long keepAlive = airtelProps.getHttp().getKeepAlive().toMillis();
+        return clientBuilder -> clientBuilder
+            .setConnectionManagerShared(true)
+            .addInterceptorFirst(JobDeadlineGuard.timeoutInterceptor())
+            .setKeepAliveStrategy((response, context) -> {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+                    .getKeepAliveDuration(response, context);
+                return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+            });
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry,
+                                          PoolingHttpClientConnectionManager connectionManager,
+                                          String state, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder("airtel.http.pool.connections", connectionManager,
+                manager -> value.applyAsDouble(manager.getTotalStats()))
+            .tag("state", state)
+            .description("Connections in the Airtel HTTP connection pool")
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,229 @@
+package org.mifos.connector.airtel.camel.processor;
+
+import static org.mifos.connector.airtel.camel.config.CamelProperties.API_PERMIT;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.http.base.HttpOperationFailedException;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.store.AccessTokenStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guards calls to Airtel with a circuit breaker and a bulkhead per endpoint and country, so that
+ * a degraded market fails fast instead of holding workers and connections needed by healthy ones.
+ * Calls are also throttled per endpoint and credential set to stay within the Airtel quota of
+ * the merchant.
+ *
+ * <p>A route acquires a permit before calling Airtel and releases it in a finally block:
+ * <pre>
+ * .process(airtelApiGuard.acquire("collection"))
+ * .doTry()
+ * .to(airtelEndpoint)
+ * .doFinally()
+ * .process(airtelApiGuard::release)
+ * .end()
+ * </pre>
+ * Exceptions, including timeouts, and 5xx responses count as failed calls.
+ */
+@Component
+public class AirtelApiGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(AirtelApiGuard.class);
+    private static final String DEFAULT_COUNTRY = "default";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final Map<String, Integer> rateLimits;
+    private final AccessTokenStore accessTokenStore;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> rateLimiterWaitTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an instance of {@link AirtelApiGuard} using the configured resilience settings and
+     * rate limits.
+     *
+     * @param airtelProps      {@link AirtelProps}
+     * @param accessTokenStore {@link AccessTokenStore}
+     * @param meterRegistry    {@link MeterRegistry}
+     */
+    public AirtelApiGuard(AirtelProps airtelProps, AccessTokenStore accessTokenStore,
+                          MeterRegistry meterRegistry) {
+        this.accessTokenStore = accessTokenStore;
+        this.meterRegistry = meterRegistry;
+        AirtelProps.RateLimit rateLimit = airtelProps.getRateLimit();
+        this.rateLimits = rateLimit.getLimits() != null
+            ? Map.copyOf(rateLimit.getLimits()) : Map.of();
+        this.rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+            .limitRefreshPeriod(rateLimit.getLimitRefreshPeriod())
+            .timeoutDuration(rateLimit.getMaxWait())
+            .build());
+        AirtelProps.Resilience resilience = airtelProps.getResilience();
+        this.circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .failureRateThreshold(resilience.getFailureRateThreshold())
+            .slidingWindowSize(resilience.getSlidingWindowSize())
+            .minimumNumberOfCalls(resilience.getMinimumNumberOfCalls())
+            .waitDurationInOpenState(resilience.getWaitDurationInOpenState())
+            .permittedNumberOfCallsInHalfOpenState(resilience.getPermittedCallsInHalfOpenState())
+            .build());
+        this.bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(resilience.getMaxConcurrentCalls())
+            .maxWaitDuration(resilience.getMaxWaitDuration())
+            .build());
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+        return circuitBreakerRegistry;
+    }
+
+    public BulkheadRegistry getBulkheadRegistry() {
+        return bulkheadRegistry;
+    }
+
+    public RateLimiterRegistry getRateLimiterRegistry() {
+        return rateLimiterRegistry;
+    }
+
+    /**
+     * Creates a processor acquiring a permit to call the given endpoint for the country set on
+     * the exchange.
+     *
+     * @param endpoint name of the Airtel endpoint, e.g. collection
+     * @return {@link Processor} throwing {@link CallNotPermittedException} when the circuit is
+     *     open, {@link RequestNotPermitted} when the rate limit wasn't freed up in time and
+     *     {@link BulkheadFullException} when too many calls are in flight
+     */
+    public Processor acquire(String endpoint) {
+        Integer rateLimit = rateLimits.get(endpoint);
+        return exchange -> {
+            String country = exchange.getProperty(COUNTRY, DEFAULT_COUNTRY, String.class);
+            String name = endpoint + ":" + country;
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name);
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(name);
+            try {
+                circuitBreaker.acquirePermission();
+            } catch (CallNotPermittedException e) {
+                logger.warn("Circuit breaker {} is open, not calling Airtel", name);
+                throw e;
+            }
+            try {
+                if (rateLimit != null) {
+                    awaitRateLimit(endpoint, accessTokenStore.getCredentialsKey(country),
+                        rateLimit);
+                }
+                bulkhead.acquirePermission();
+            } catch (RequestNotPermitted | BulkheadFullException e) {
+                circuitBreaker.releasePermission();
+                logger.warn("Not calling Airtel for {}: {}", name, e.getMessage());
+                throw e;
+            }
+            exchange.setProperty(API_PERMIT, new Permit(endpoint, circuitBreaker, bulkhead,
+                System.nanoTime()));
+        };
+    }
+
+    /**
+     * Records the outcome of the call and releases the permit set on the exchange. The call
+     * latency is recorded in {@code airtel.http.requests}, tagged by endpoint and status code.
+     *
+     * @param exchange {@link Exchange}
+     */
+    public void release(Exchange exchange) {
+        Permit permit = exchange.getProperty(API_PERMIT, Permit.class);
+        if (permit == null) {
+            return;
+        }
+        exchange.removeProperty(API_PERMIT);
+        long duration = System.nanoTime() - permit.startedAt();
+        Exception exception = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+        Integer statusCode = exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE,
+            Integer.class);
+        if (exception != null) {
+            permit.circuitBreaker().onError(duration, TimeUnit.NANOSECONDS, exception);
+        } else if (statusCode != null && statusCode >= 500) {
+            permit.circuitBreaker().onError(duration, TimeUnit.NANOSECONDS,
+                new HttpOperationFailedException(permit.circuitBreaker().getName(), statusCode,
+                    null, null, Map.of(), null));
+        } else {
+            permit.circuitBreaker().onSuccess(duration, TimeUnit.NANOSECONDS);
+        }
+        permit.bulkhead().onComplete();
+        Timer.builder("airtel.http.requests")
+            .description("Latency of Airtel API calls")
+            .tag("endpoint", permit.endpoint())
+            .tag("status", exception != null || statusCode == null
+                ? "error" : String.valueOf(statusCode))
+            .register(meterRegistry)
+            .record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for a permit of the rate limiter of the endpoint and credential set, for at most the
+     * configured max wait.
+     *
+     * @param endpoint    name of the Airtel endpoint
+     * @param credentials key of the credential set used for the call
+     * @param limit       calls allowed per refresh period
+     * @throws RequestNotPermitted if no permit was freed up in time
+     */
+    private void awaitRateLimit(String endpoint, String credentials, int limit) {
+        String name = endpoint + ":" + credentials;
+        RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(name,
+            () -> RateLimiterConfig.from(rateLimiterRegistry.getDefaultConfig())
+                .limitForPeriod(limit)
+                .build());
+        long startedAt = System.nanoTime();
+        boolean permitted = rateLimiter.acquirePermission();
+        rateLimiterWaitTimers.computeIfAbsent(name, key -> Timer
+                .builder("airtel.rate.limiter.wait")
+                .description("Time spent waiting for an Airtel rate limiter permit")
+                .tag("endpoint", endpoint)
+                .tag("credentials", credentials)
+                .register(meterRegistry))
+            .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (!permitted) {
+            throw RequestNotPermitted.createRequestNotPermitted(rateLimiter);
+        }
+    }
+
+    /**
+     * Checks if the failure is a call that was rejected without reaching Airtel.
+     *
+     * @param throwable the failure, possibly wrapped
+     * @return true if the circuit was open, the rate limit was reached or the bulkhead was full
+     */
+    public static boolean isRejectedCall(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallNotPermittedException
+                || cause instanceof RequestNotPermitted
+                || cause instanceof BulkheadFullException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Permit(String endpoint, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                          long startedAt) { }
+}
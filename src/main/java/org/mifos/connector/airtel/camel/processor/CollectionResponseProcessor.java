@@ -1,9 +1,12 @@
 package org.mifos.connector.airtel.camel.processor;
 
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.CURRENCY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_RETRY_EXCEEDED;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_SCHEDULED_POLL;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_TRANSACTION_PENDING;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.LAST_RESPONSE_BODY;
-import static org.mifos.connector.airtel.util.ZeebeUtils.getNextTimer;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.MESSAGE_ID;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.AIRTEL_MONEY_ID;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.CALLBACK;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.CALLBACK_RECEIVED;
@@ -24,6 +27,9 @@ import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ZEEBE_ELEMENT_INST
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.command.ClientStatusException;
+import io.camunda.zeebe.client.api.command.PublishMessageCommandStep1.PublishMessageCommandStep3;
+import io.grpc.Status;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,7 +37,10 @@ import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.http.base.HttpOperationFailedException;
 import org.apache.camel.util.json.JsonObject;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.store.SettlementTimeStore;
 import org.mifos.connector.airtel.util.ZeebeUtils;
+import org.mifos.connector.airtel.zeebe.ZeebeMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -45,19 +54,40 @@ public class CollectionResponseProcessor implements Processor {
     private static final Logger logger = LoggerFactory.getLogger(CollectionResponseProcessor.class);
     private final ZeebeClient zeebeClient;
     private final ObjectMapper objectMapper;
+    private final ZeebeMetrics zeebeMetrics;
+    private final SettlementTimeStore settlementTimeStore;
+
+    /**
+     * Determines if the raw Airtel responses and callbacks are published as process variables,
+     * on top of the typed fields.
+     */
+    private final boolean capturePayloads;
     @Value("${zeebe.client.ttl}")
     private int timeToLive;
 
-    public CollectionResponseProcessor(ZeebeClient zeebeClient, ObjectMapper objectMapper) {
+    /**
+     * Creates an instance of {@link CollectionResponseProcessor} with all required params.
+     *
+     * @param zeebeClient         {@link ZeebeClient}
+     * @param objectMapper        {@link ObjectMapper}
+     * @param airtelProps         {@link AirtelProps}
+     * @param zeebeMetrics        {@link ZeebeMetrics}
+     * @param settlementTimeStore {@link SettlementTimeStore}
+     */
+    public CollectionResponseProcessor(ZeebeClient zeebeClient, ObjectMapper objectMapper,
+                                       AirtelProps airtelProps, ZeebeMetrics zeebeMetrics,
+                                       SettlementTimeStore settlementTimeStore) {
         this.zeebeClient = zeebeClient;
         this.objectMapper = objectMapper;
+        this.zeebeMetrics = zeebeMetrics;
+        this.settlementTimeStore = settlementTimeStore;
+        this.capturePayloads = airtelProps.getVariables().isCapturePayloads();
     }
 
     @Override
     public void process(Exchange exchange) throws JsonProcessingException {
         Map<String, Object> variables = new HashMap<>();
         Object updatedRetryCount = exchange.getProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT);
-        setTransactionStatusResponseVariables(exchange, variables, updatedRetryCount);
 
         // Update timer (when next to attempt getting the transaction status) if the transaction
         // is pending and the number of retries hasn't been exceeded.
@@ -65,30 +95,52 @@ public class CollectionResponseProcessor implements Processor {
         Boolean isTransactionPending = exchange.getProperty(IS_TRANSACTION_PENDING, Boolean.class);
         if (Boolean.TRUE.equals(isTransactionPending)
             && (isRetryExceeded == null || !isRetryExceeded)) {
-            String newTimer = getNextTimer(exchange.getProperty(TIMER, String.class));
+            String newTimer = settlementTimeStore.getNextTimer(
+                exchange.getProperty(TRANSACTION_ID, String.class),
+                exchange.getProperty(COUNTRY, String.class),
+                exchange.getProperty(CURRENCY, String.class),
+                exchange.getProperty(TIMER, String.class));
             logger.info("Updating retry count to {}", updatedRetryCount);
             logger.info("Updating timer value to {}", newTimer);
+            if (Boolean.TRUE.equals(exchange.getProperty(IS_SCHEDULED_POLL, Boolean.class))) {
+                // The status poll scheduler keeps the timer, the job has already been completed
+                exchange.setProperty(TIMER, newTimer);
+                return;
+            }
+            setTransactionStatusResponseVariables(exchange, variables, updatedRetryCount);
             variables.put(TIMER, newTimer);
             Long elementInstanceKey = (Long) exchange.getProperty(ZEEBE_ELEMENT_INSTANCE_KEY);
-            zeebeClient.newSetVariablesCommand(elementInstanceKey)
+            zeebeMetrics.timeBlockingCommand("set-variables", () -> zeebeClient
+                .newSetVariablesCommand(elementInstanceKey)
                 .variables(variables)
                 .send()
-                .join();
+                .join());
             return;
         }
 
+        setTransactionStatusResponseVariables(exchange, variables, updatedRetryCount);
         handleTransactionOutcome(exchange, variables, isRetryExceeded);
         variables.put(TRANSFER_RESPONSE_CREATE, ZeebeUtils.getTransferResponseCreateJson());
 
         String correlationId = exchange.getProperty(TRANSACTION_ID, String.class);
         logger.info("Publishing transaction message variables: {}", variables);
-        zeebeClient.newPublishMessageCommand()
+        PublishMessageCommandStep3 publishMessageCommand = zeebeClient.newPublishMessageCommand()
             .messageName(TRANSFER_MESSAGE)
             .correlationKey(correlationId)
             .timeToLive(Duration.ofMillis(timeToLive))
-            .variables(variables)
-            .send()
-            .join();
+            .variables(variables);
+        String messageId = exchange.getProperty(MESSAGE_ID, String.class);
+        if (messageId != null) {
+            publishMessageCommand.messageId(messageId);
+        }
+        try {
+            zeebeMetrics.timeBlockingCommand("publish", () -> publishMessageCommand.send().join());
+        } catch (ClientStatusException e) {
+            if (e.getStatusCode() != Status.Code.ALREADY_EXISTS) {
+                throw e;
+            }
+            logger.info("Message {} has already been published, skipping", messageId);
+        }
     }
 
     /**
@@ -106,10 +158,14 @@ public class CollectionResponseProcessor implements Processor {
             variables.put(SERVER_TRANSACTION_STATUS_RETRY_COUNT, updatedRetryCount);
             Boolean isRetryExceeded = (Boolean) exchange.getProperty(IS_RETRY_EXCEEDED);
             if (isRetryExceeded == null || !isRetryExceeded) {
-                String body = exchange.getProperty(LAST_RESPONSE_BODY, String.class);
                 Object statusCode = exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE);
-                if (body == null) {
-                    body = exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_TEXT, String.class);
+                if (capturePayloads) {
+                    String body = exchange.getProperty(LAST_RESPONSE_BODY, String.class);
+                    if (body == null) {
+                        body = exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_TEXT,
+                            String.class);
+                    }
+                    variables.put(GET_TRANSACTION_STATUS_RESPONSE, body);
                 }
                 if (statusCode == null) {
                     Exception e = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
@@ -117,7 +173,6 @@ public class CollectionResponseProcessor implements Processor {
                         statusCode = httpOperationFailedException.getStatusCode();
                     }
                 }
-                variables.put(GET_TRANSACTION_STATUS_RESPONSE, body);
                 variables.put(GET_TRANSACTION_STATUS_RESPONSE_CODE, statusCode);
             }
         }
@@ -138,8 +193,10 @@ public class CollectionResponseProcessor implements Processor {
             variables.put(TRANSACTION_FAILED, true);
             variables.put(TRANSFER_CREATE_FAILED, true);
             if (isRetryExceeded == null || !isRetryExceeded) {
-                variables.put(ERROR_INFORMATION,
-                    exchange.getProperty(ERROR_INFORMATION, String.class));
+                if (capturePayloads) {
+                    variables.put(ERROR_INFORMATION,
+                        exchange.getProperty(ERROR_INFORMATION, String.class));
+                }
                 variables.put(ERROR_CODE, exchange.getProperty(ERROR_CODE, String.class));
                 variables.put(ERROR_DESCRIPTION,
                     exchange.getProperty(ERROR_DESCRIPTION, String.class));
@@ -151,10 +208,12 @@ public class CollectionResponseProcessor implements Processor {
             if (airtelMoneyId != null) {
                 variables.put(AIRTEL_MONEY_ID, airtelMoneyId);
             }
-            String callback = exchange.getProperty(CALLBACK, String.class);
-            if (callback != null) {
-                variables.put(CALLBACK, callback);
-                variables.put(CALLBACK_RECEIVED, exchange.getProperty(CALLBACK_RECEIVED));
+            Object callbackReceived = exchange.getProperty(CALLBACK_RECEIVED);
+            if (callbackReceived != null) {
+                variables.put(CALLBACK_RECEIVED, callbackReceived);
+                if (capturePayloads) {
+                    variables.put(CALLBACK, exchange.getProperty(CALLBACK, String.class));
+                }
             }
         }
     }
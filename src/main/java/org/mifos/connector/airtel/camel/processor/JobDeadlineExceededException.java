@@ -0,0 +1,11 @@
+package org.mifos.connector.airtel.camel.processor;
+
+/**
+ * Thrown when too little time is left before the zeebe job deadline to call Airtel.
+ */
+public class JobDeadlineExceededException extends RuntimeException {
+
+    public JobDeadlineExceededException(String message) {
+        super(message);
+    }
+}
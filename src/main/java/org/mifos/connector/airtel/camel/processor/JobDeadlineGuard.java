@@ -0,0 +1,140 @@
+package org.mifos.connector.airtel.camel.processor;
+
+import static org.mifos.connector.airtel.camel.config.CamelProperties.JOB_DEADLINE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.apache.camel.Exchange;
+import org.apache.http.Header;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps Airtel calls within the time left before the zeebe job of the exchange times out, so
+ * that the broker doesn't hand the job to another worker while this one is still calling Airtel.
+ *
+ * <p>Exchanges created for a job carry its deadline in {@link
+ * org.mifos.connector.airtel.camel.config.CamelProperties#JOB_DEADLINE}. The budget of a call is
+ * the time left until that deadline, less the reserve kept for completing the job. A route caps
+ * the call timeouts to the budget before calling Airtel:
+ * <pre>
+ * .process(jobDeadlineGuard::capTimeout)
+ * .process(airtelApiGuard.acquire("collection"))
+ * </pre>
+ * Calls with less than the min budget left are skipped with a
+ * {@link JobDeadlineExceededException}. Exchanges without a deadline, like the ones of the
+ * status poll scheduler, keep the configured timeout.</p>
+ */
+@Component
+public class JobDeadlineGuard {
+
+    /**
+     * Carries the capped timeout to {@link #timeoutInterceptor()}, which removes it before the
+     * request is sent.
+     */
+    public static final String TIMEOUT_HEADER = "X-Airtel-Call-Timeout";
+
+    private final long timeoutMillis;
+    private final long reserveMillis;
+    private final long minBudgetMillis;
+    private final Counter skippedCalls;
+
+    /**
+     * Creates an instance of {@link JobDeadlineGuard} using the configured timeout and deadline
+     * settings.
+     *
+     * @param airtelProps   {@link AirtelProps}
+     * @param meterRegistry {@link MeterRegistry}
+     */
+    public JobDeadlineGuard(AirtelProps airtelProps, MeterRegistry meterRegistry) {
+        this.timeoutMillis = airtelProps.getTimeout();
+        this.reserveMillis = airtelProps.getDeadline().getReserve().toMillis();
+        this.minBudgetMillis = airtelProps.getDeadline().getMinBudget().toMillis();
+        this.skippedCalls = Counter.builder("airtel.deadline.skipped")
+            .description("Airtel calls skipped because the zeebe job deadline was too close")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the time the exchange may still spend on Airtel calls.
+     *
+     * @param exchange {@link Exchange}
+     * @return the budget, or null if the exchange has no job deadline
+     * @throws JobDeadlineExceededException if the budget is below the min budget
+     */
+    public Duration getBudget(Exchange exchange) {
+        Long deadline = exchange.getProperty(JOB_DEADLINE, Long.class);
+        if (deadline == null) {
+            return null;
+        }
+        long budget = deadline - reserveMillis - System.currentTimeMillis();
+        if (budget < minBudgetMillis) {
+            skippedCalls.increment();
+            throw new JobDeadlineExceededException("Skipping Airtel call, " + Math.max(0, budget)
+                + "ms left before the job deadline");
+        }
+        return Duration.ofMillis(budget);
+    }
+
+    /**
+     * Caps the timeouts of the next Airtel call of the exchange to its budget.
+     *
+     * @param exchange {@link Exchange}
+     * @throws JobDeadlineExceededException if the budget is below the min budget
+     */
+    public void capTimeout(Exchange exchange) {
+        Duration budget = getBudget(exchange);
+        if (budget != null && budget.toMillis() < timeoutMillis) {
+            exchange.getIn().setHeader(TIMEOUT_HEADER, budget.toMillis());
+        } else {
+            exchange.getIn().removeHeader(TIMEOUT_HEADER);
+        }
+    }
+
+    /**
+     * Checks if the throwable, or any of its causes, is a {@link JobDeadlineExceededException}.
+     *
+     * @param throwable the failure of an exchange or job
+     * @return true if an Airtel call was skipped for lack of time
+     */
+    public static boolean isDeadlineExceeded(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JobDeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an interceptor which applies the {@link #TIMEOUT_HEADER} of a request to its
+     * connection request, connect and socket timeouts, and removes the header.
+     *
+     * @return {@link HttpRequestInterceptor}
+     */
+    public static HttpRequestInterceptor timeoutInterceptor() {
+        return (request, context) -> {
+            Header header = request.getFirstHeader(TIMEOUT_HEADER);
+            if (header == null) {
+                return;
+            }
+            request.removeHeaders(TIMEOUT_HEADER);
+            int budget = Integer.parseInt(header.getValue());
+            HttpClientContext clientContext = HttpClientContext.adapt(context);
+            RequestConfig config = clientContext.getRequestConfig();
+            clientContext.setRequestConfig(RequestConfig.copy(config)
+                .setConnectionRequestTimeout(cap(config.getConnectionRequestTimeout(), budget))
+                .setConnectTimeout(cap(config.getConnectTimeout(), budget))
+                .setSocketTimeout(cap(config.getSocketTimeout(), budget))
+                .build());
+        };
+    }
+
+    private static int cap(int timeout, int budget) {
+        return timeout > 0 ? Math.min(timeout, budget) : budget;
+    }
+}
@@ -4,9 +4,11 @@ import static org.mifos.connector.airtel.camel.config.CamelProperties.ACCESS_TOK
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_REQUEST_BODY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_RESPONSE_BODY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_TRANSACTION_ID;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_RETRY_EXCEEDED;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_TRANSACTION_PENDING;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.LAST_RESPONSE_BODY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.MESSAGE_ID;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.AIRTEL_MONEY_ID;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.CALLBACK;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.CALLBACK_RECEIVED;
@@ -17,16 +19,26 @@ import static org.mifos.connector.airtel.zeebe.ZeebeVariables.SERVER_TRANSACTION
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_FAILED;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_ID;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.camel.Exchange;
 import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.seda.SedaEndpoint;
 import org.apache.camel.model.dataformat.JsonLibrary;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
 import org.mifos.connector.airtel.camel.processor.CollectionResponseProcessor;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineGuard;
 import org.mifos.connector.airtel.dto.AirtelProps;
 import org.mifos.connector.airtel.dto.CallbackDto;
 import org.mifos.connector.airtel.dto.CollectionRequestDto;
 import org.mifos.connector.airtel.dto.CollectionResponseDto;
 import org.mifos.connector.airtel.store.AccessTokenStore;
+import org.mifos.connector.airtel.store.CallbackDedupeStore;
+import org.mifos.connector.airtel.store.SettlementTimeStore;
+import org.mifos.connector.airtel.store.TransactionOutcome;
+import org.mifos.connector.airtel.store.TransactionStateStore;
 import org.mifos.connector.airtel.util.ConnectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +54,14 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
     private final AccessTokenStore accessTokenStore;
     private final AirtelProps airtelProps;
     private final CollectionResponseProcessor collectionResponseProcessor;
+    private final CallbackDedupeStore callbackDedupeStore;
+    private final TransactionStateStore transactionStateStore;
+    private final MeterRegistry meterRegistry;
+    private final AirtelApiGuard airtelApiGuard;
+    private final SettlementTimeStore settlementTimeStore;
+    private final JobDeadlineGuard jobDeadlineGuard;
+    private final Counter rejectedCallbacks;
+    private final Counter failedCallbacks;
     @Value("${transaction-id-prefix}")
     private String transactionIdPrefix;
 
@@ -51,12 +71,35 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
      * @param accessTokenStore            {@link AccessTokenStore}
      * @param airtelProps                 {@link AirtelProps}
      * @param collectionResponseProcessor {@link CollectionResponseProcessor}
+     * @param callbackDedupeStore         {@link CallbackDedupeStore}
+     * @param transactionStateStore       {@link TransactionStateStore}
+     * @param meterRegistry               {@link MeterRegistry}
+     * @param airtelApiGuard              {@link AirtelApiGuard}
+     * @param settlementTimeStore         {@link SettlementTimeStore}
+     * @param jobDeadlineGuard            {@link JobDeadlineGuard}
      */
     public AirtelMoneyRouteBuilder(AccessTokenStore accessTokenStore, AirtelProps airtelProps,
-                                   CollectionResponseProcessor collectionResponseProcessor) {
+                                   CollectionResponseProcessor collectionResponseProcessor,
+                                   CallbackDedupeStore callbackDedupeStore,
+                                   TransactionStateStore transactionStateStore,
+                                   MeterRegistry meterRegistry, AirtelApiGuard airtelApiGuard,
+                                   SettlementTimeStore settlementTimeStore,
+                                   JobDeadlineGuard jobDeadlineGuard) {
         this.accessTokenStore = accessTokenStore;
         this.airtelProps = airtelProps;
         this.collectionResponseProcessor = collectionResponseProcessor;
+        this.callbackDedupeStore = callbackDedupeStore;
+        this.transactionStateStore = transactionStateStore;
+        this.meterRegistry = meterRegistry;
+        this.airtelApiGuard = airtelApiGuard;
+        this.settlementTimeStore = settlementTimeStore;
+        this.jobDeadlineGuard = jobDeadlineGuard;
+        this.rejectedCallbacks = Counter.builder("airtel.callback.rejected")
+            .description("Airtel callbacks rejected because the callback queue was full")
+            .register(meterRegistry);
+        this.failedCallbacks = Counter.builder("airtel.callback.publish.failed")
+            .description("Airtel callbacks dropped after failing to be published to zeebe")
+            .register(meterRegistry);
     }
 
     @Override
@@ -65,7 +108,8 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
         /*
          * Starts the payment flow
          *
-         * Step1: Authenticate the user by initiating [get-access-token] flow
+         * Step1: Get the access token from the store, which refreshes it if needed, waiting no
+         *        longer than the job deadline allows
          * Step2: On successful [Step1], directs to [collection-request] flow
          */
         from("direct:collection-request-base")
@@ -73,18 +117,17 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
             .log(LoggingLevel.INFO, "Starting collection request flow")
             .log(LoggingLevel.INFO, "Starting buy goods flow with retry count: "
                 + airtelProps.getMaxRetryCount())
-            .to("direct:get-access-token")
-            .process(exchange -> exchange.setProperty(ACCESS_TOKEN,
-                accessTokenStore.getAccessToken()))
+            .process(this::setAccessToken)
             .log(LoggingLevel.INFO, "Got access token, moving on to API call.")
             .to("direct:collection-request")
             .log(LoggingLevel.INFO, "Status: ${header.CamelHttpResponseCode}")
-            .log(LoggingLevel.INFO, "Collection request API response: ${body}")
             .to("direct:collection-response-handler");
 
         /*
          * Takes the access toke and payment request and forwards the requests
-         * to Airtel collection API.
+         * to Airtel collection API. Fails fast when the collection circuit breaker for the
+         * country is open or its bulkhead is full, or when too little time is left before the
+         * job deadline.
          */
         from("direct:collection-request")
             .removeHeader("*")
@@ -100,12 +143,20 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
                 return collectionRequestDto;
             })
             .marshal().json(JsonLibrary.Jackson)
-            .toD(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getCollectionEndpoint()
+            .process(jobDeadlineGuard::capTimeout)
+            .process(airtelApiGuard.acquire("collection"))
+            .doTry()
+            .to(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getCollectionEndpoint()
                 + "?bridgeEndpoint=true&throwExceptionOnFailure=false&"
                 + ConnectionUtils.getConnectionTimeoutDsl(airtelProps.getTimeout()))
+            .doFinally()
+            .process(airtelApiGuard::release)
+            .end()
+            // The response is read once into a byte array, only decoded when its text is needed
+            .convertBodyTo(byte[].class)
             .process(exchange -> exchange.setProperty(COLLECTION_RESPONSE_BODY,
-                exchange.getIn().getBody(String.class)))
-            .log(LoggingLevel.INFO, "Airtel collection API called, response: \n\n ${body}");
+                exchange.getIn().getBody()))
+            .log(LoggingLevel.DEBUG, "Airtel collection API called, response: \n\n ${body}");
 
         /*
          * Route to handle Airtel collection API responses
@@ -124,31 +175,39 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
                     exchange.setProperty(TRANSACTION_FAILED, true);
                     exchange.setProperty(ERROR_CODE, collectionStatus.getResponseCode());
                     exchange.setProperty(ERROR_DESCRIPTION, collectionStatus.getMessage());
-                    exchange.setProperty(ERROR_INFORMATION, exchange.getIn().getBody(String.class));
+                    exchange.setProperty(ERROR_INFORMATION,
+                        exchange.getProperty(COLLECTION_RESPONSE_BODY, String.class));
                 }
             })
             .otherwise()
-            .process(exchange -> setErrorDataForNon200Response(exchange, "Collection"));
+            .process(exchange -> setErrorDataForNon200Response(exchange, "Collection",
+                exchange.getProperty(COLLECTION_RESPONSE_BODY, String.class)));
 
         /*
          * Starts the payment flow
          *
-         * Step1: Authenticate the user by initiating [get-access-token] flow
+         * Step0: If a callback or an earlier poll has settled the transaction, publishes the
+         *        known outcome without calling Airtel
+         * Step1: Get the access token from the store, which refreshes it if needed, waiting no
+         *        longer than the job deadline allows
          * Step2: On successful [Step1], directs to [airtel-transaction-status] flow
          */
         from("direct:get-transaction-status-base")
             .id("get-transaction-status-base")
             .log(LoggingLevel.INFO, "Starting Airtel transaction status flow")
             .choice()
+            .when(exchange -> transactionStateStore
+                .get(exchange.getProperty(TRANSACTION_ID, String.class)) != null)
+            .log(LoggingLevel.INFO, "Transaction ${exchangeProperty." + TRANSACTION_ID
+                + "} has already been settled, skipping Airtel status call")
+            .process(this::setTerminalStateData)
+            .process(collectionResponseProcessor)
             .when(exchangeProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT)
                 .isLessThanOrEqualTo(airtelProps.getMaxRetryCount()))
-            .to("direct:get-access-token")
-            .process(exchange -> exchange.setProperty(ACCESS_TOKEN,
-                accessTokenStore.getAccessToken()))
+            .process(this::setAccessToken)
             .log(LoggingLevel.INFO, "Got access token, moving on to API call.")
             .to("direct:airtel-transaction-status")
             .log(LoggingLevel.INFO, "Status: ${header.CamelHttpResponseCode}")
-            .log(LoggingLevel.INFO, "Transaction status API response: ${body}")
             .to("direct:transaction-status-response-handler")
             .otherwise()
             .process(exchange -> {
@@ -158,7 +217,8 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
             .process(collectionResponseProcessor);
 
         /*
-         * Retrieves the transaction status by calling the Airtel status endpoint
+         * Retrieves the transaction status by calling the Airtel status endpoint, guarded by the
+         * transaction status circuit breaker and bulkhead of the country
          */
         from("direct:airtel-transaction-status")
             .removeHeader("*")
@@ -167,11 +227,22 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
             .setHeader("X-Country", simple("${exchangeProperty.country}"))
             .setHeader("X-Currency", simple("${exchangeProperty.currency}"))
             .setHeader("Authorization", simple("Bearer ${exchangeProperty." + ACCESS_TOKEN + "}"))
-            .toD(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getStatusEndpoint()
-                + "/${exchangeProperty." + COLLECTION_TRANSACTION_ID + "}"
+            // The transaction ID goes in the path header so that every call shares one endpoint,
+            // producer and connection pool instead of resolving a new endpoint per transaction
+            .setHeader(Exchange.HTTP_PATH, exchangeProperty(COLLECTION_TRANSACTION_ID))
+            .process(jobDeadlineGuard::capTimeout)
+            .process(airtelApiGuard.acquire("transaction-status"))
+            .doTry()
+            .to(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getStatusEndpoint()
                 + "?bridgeEndpoint=true&throwExceptionOnFailure=false&"
                 + ConnectionUtils.getConnectionTimeoutDsl(airtelProps.getTimeout()))
-            .log(LoggingLevel.INFO, "Airtel Transaction status API called for id:"
+            .doFinally()
+            .process(airtelApiGuard::release)
+            .end()
+            // The response is read once into a byte array, and only turned into text when it is
+            // published as a zeebe variable
+            .convertBodyTo(byte[].class)
+            .log(LoggingLevel.DEBUG, "Airtel Transaction status API called for id:"
                 + " ${exchangeProperty." + COLLECTION_TRANSACTION_ID + "}, response: \n\n ${body}");
 
         /*
@@ -179,9 +250,10 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
          */
         from("direct:transaction-status-response-handler")
             .id("transaction-status-response-handler")
-            .unmarshal().json(CollectionResponseDto.class)
             .choice()
             .when(header(Exchange.HTTP_RESPONSE_CODE).isEqualTo("200"))
+            .setProperty(LAST_RESPONSE_BODY, body())
+            .unmarshal().json(CollectionResponseDto.class)
             .process(exchange -> {
                 CollectionResponseDto response = exchange.getIn()
                     .getBody(CollectionResponseDto.class);
@@ -192,40 +264,86 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
                     if ("TS".equals(transactionData.getStatus())) {
                         exchange.setProperty(TRANSACTION_FAILED, false);
                         exchange.setProperty(AIRTEL_MONEY_ID, transactionData.getAirtelMoneyId());
+                        recordTerminalState(exchange);
                     } else if ("TF".equals(transactionData.getStatus())) {
                         setErrorDataForFailedTransaction(exchange, collectionStatus,
                             transactionData);
+                        recordTerminalState(exchange);
                     } else {
                         exchange.setProperty(IS_TRANSACTION_PENDING, true);
                     }
                 } else {
                     setErrorDataForFailedTransaction(exchange, collectionStatus, null);
                 }
-                exchange.setProperty(LAST_RESPONSE_BODY, exchange.getIn().getBody(String.class));
             })
             .process(collectionResponseProcessor)
             .otherwise()
-            .process(exchange -> setErrorDataForNon200Response(exchange, "Transaction enquiry"))
+            .process(exchange -> setErrorDataForNon200Response(exchange, "Transaction enquiry",
+                exchange.getIn().getBody(String.class)))
             .setProperty(TRANSACTION_FAILED, constant(true))
             .process(collectionResponseProcessor);
 
         /*
-           Endpoint for receiving the callback form Airtel
+           Endpoint for receiving the callback form Airtel. The callback is acknowledged as soon
+           as it is queued, and rejected with a 503 when the queue is full so that Airtel
+           retries it later.
          */
+        String callbackQueue = "seda:collection-callbacks?size="
+            + airtelProps.getCallback().getQueueSize()
+            + "&concurrentConsumers=" + airtelProps.getCallback().getConsumers()
+            + "&waitForTaskToComplete=Never";
         from("rest:POST:/collections/callback")
             .id("collections-callback")
             .log(LoggingLevel.INFO, "Callback body \n\n..\n\n..\n\n.. ${body}")
             .unmarshal().json(CallbackDto.class)
-            .to("direct:callback-handler")
+            .doTry()
+            .to(callbackQueue)
             .setHeader(Exchange.HTTP_RESPONSE_CODE, constant(202))
+            .doCatch(IllegalStateException.class)
+            .log(LoggingLevel.WARN, "Callback queue is full, rejecting callback")
+            .process(exchange -> rejectedCallbacks.increment())
+            .setHeader(Exchange.HTTP_RESPONSE_CODE, constant(503))
+            .end()
             .setBody(constant(""));
 
+        /*
+         * Publishes queued callbacks to zeebe. Since the callback has already been acknowledged,
+         * a failed publish is redelivered before the callback is given up on.
+         */
+        AirtelProps.Callback callback = airtelProps.getCallback();
+        from(callbackQueue)
+            .id("collections-callback-consumer")
+            .errorHandler(deadLetterChannel("direct:callback-failed")
+                .maximumRedeliveries(callback.getMaxRedeliveries())
+                .redeliveryDelay(callback.getRedeliveryDelay().toMillis())
+                .useExponentialBackOff()
+                .asyncDelayedRedelivery()
+                .retryAttemptedLogLevel(LoggingLevel.WARN))
+            .to("direct:callback-handler");
+
+        /*
+         * Counts and logs callbacks that couldn't be published after all redeliveries
+         */
+        from("direct:callback-failed")
+            .id("callback-failed")
+            .process(exchange -> failedCallbacks.increment())
+            .log(LoggingLevel.ERROR, "Dropping callback that couldn't be published: "
+                + "${exchangeProperty.CamelExceptionCaught}\n${body}");
+
+        SedaEndpoint callbackQueueEndpoint = getContext().getEndpoint(callbackQueue,
+            SedaEndpoint.class);
+        Gauge.builder("airtel.callback.queue.size", callbackQueueEndpoint,
+                SedaEndpoint::getCurrentQueueSize)
+            .description("Airtel callbacks waiting to be published to zeebe")
+            .register(meterRegistry);
+
 
         /*
          * Handles Airtel callback request
          */
         from("direct:callback-handler")
             .id("callback-handler")
+            .errorHandler(noErrorHandler())
             .log(LoggingLevel.INFO, "Handling callback body")
             .process(exchange -> {
                 CallbackDto callbackDto = exchange.getIn().getBody(CallbackDto.class);
@@ -253,23 +371,101 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
             })
             .choice()
             .when(exchangeProperty(TRANSACTION_FAILED).isNotNull())
-            .process(collectionResponseProcessor)
+            .process(this::publishCallback)
             .otherwise()
             .log("Transaction is in intermediate state. "
                 + "Hence, an attempt will be made to get transaction status later");
     }
 
     /**
-     * Adds error data to the exchange when HTTP response status code is not 200.
+     * Sets the access token for the country of the exchange, waiting for a refresh no longer
+     * than the budget left before the job deadline.
      *
      * @param exchange {@link Exchange}
-     * @param resource the API resource
      */
-    private void setErrorDataForNon200Response(Exchange exchange, String resource) {
+    private void setAccessToken(Exchange exchange) {
+        exchange.setProperty(ACCESS_TOKEN, accessTokenStore.getAccessToken(
+            exchange.getProperty(COUNTRY, String.class), jobDeadlineGuard.getBudget(exchange)));
+    }
+
+    /**
+     * Publishes the callback outcome to zeebe unless the same callback has already been
+     * published.
+     *
+     * @param exchange {@link Exchange}
+     * @throws Exception if publishing to zeebe fails
+     */
+    private void publishCallback(Exchange exchange) throws Exception {
+        recordTerminalState(exchange);
+        CallbackDto.Transaction transaction = exchange.getIn().getBody(CallbackDto.class)
+            .getTransaction();
+        String callbackKey = CallbackDedupeStore.key(transaction.getId(),
+            transaction.getStatusCode());
+        if (!callbackDedupeStore.markPublished(callbackKey)) {
+            logger.info("Callback {} has already been published, skipping", callbackKey);
+            return;
+        }
+        if (airtelProps.getCallback().isDedupeAcrossReplicas()) {
+            exchange.setProperty(MESSAGE_ID, callbackKey);
+        }
+        try {
+            collectionResponseProcessor.process(exchange);
+        } catch (Exception e) {
+            callbackDedupeStore.forget(callbackKey);
+            throw e;
+        }
+    }
+
+    /**
+     * Records the final outcome set on the exchange in the {@link TransactionStateStore}, and the
+     * time the transaction took to settle in the {@link SettlementTimeStore}.
+     *
+     * @param exchange {@link Exchange}
+     */
+    private void recordTerminalState(Exchange exchange) {
+        settlementTimeStore.recordSettlement(exchange.getProperty(TRANSACTION_ID, String.class));
+        transactionStateStore.record(exchange.getProperty(TRANSACTION_ID, String.class),
+            new TransactionOutcome(
+                exchange.getProperty(TRANSACTION_FAILED, Boolean.class),
+                exchange.getProperty(AIRTEL_MONEY_ID, String.class),
+                exchange.getProperty(ERROR_CODE, String.class),
+                exchange.getProperty(ERROR_DESCRIPTION, String.class),
+                exchange.getProperty(ERROR_INFORMATION, String.class),
+                exchange.getProperty(CALLBACK, String.class)));
+    }
+
+    /**
+     * Sets the final outcome recorded in the {@link TransactionStateStore} on the exchange.
+     *
+     * @param exchange {@link Exchange}
+     */
+    private void setTerminalStateData(Exchange exchange) {
+        TransactionOutcome outcome = transactionStateStore
+            .get(exchange.getProperty(TRANSACTION_ID, String.class));
+        exchange.setProperty(TRANSACTION_FAILED, outcome.failed());
+        exchange.setProperty(AIRTEL_MONEY_ID, outcome.airtelMoneyId());
+        exchange.setProperty(ERROR_CODE, outcome.errorCode());
+        exchange.setProperty(ERROR_DESCRIPTION, outcome.errorDescription());
+        exchange.setProperty(ERROR_INFORMATION, outcome.errorInformation());
+        if (outcome.callback() != null) {
+            exchange.setProperty(CALLBACK, outcome.callback());
+            exchange.setProperty(CALLBACK_RECEIVED, true);
+        }
+    }
+
+    /**
+     * Adds error data to the exchange when HTTP response status code is not 200.
+     *
+     * @param exchange     {@link Exchange}
+     * @param resource     the API resource
+     * @param responseBody the response body as text
+     */
+    private void setErrorDataForNon200Response(Exchange exchange, String resource,
+                                               String responseBody) {
         exchange.setProperty(TRANSACTION_FAILED, true);
         exchange.setProperty(ERROR_CODE, exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE));
         exchange.setProperty(ERROR_DESCRIPTION, resource + " API response status is not a 200");
-        exchange.setProperty(ERROR_INFORMATION, exchange.getIn().getBody(String.class));
+        exchange.setProperty(ERROR_INFORMATION, responseBody);
     }
 
     /**
@@ -289,6 +485,7 @@ public class AirtelMoneyRouteBuilder extends RouteBuilder {
         exchange.setProperty(TRANSACTION_FAILED, true);
         exchange.setProperty(ERROR_CODE, collectionStatus.getResponseCode());
         exchange.setProperty(ERROR_DESCRIPTION, errorDescription);
-        exchange.setProperty(ERROR_INFORMATION, exchange.getIn().getBody(String.class));
+        exchange.setProperty(ERROR_INFORMATION, exchange.getProperty(LAST_RESPONSE_BODY,
+            String.class));
     }
 }
@@ -1,15 +1,15 @@
 package org.mifos.connector.airtel.camel.routes;
 
+import static org.mifos.connector.airtel.camel.config.CamelProperties.AUTH_CREDENTIALS;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ERROR_INFORMATION;
 
-import java.time.LocalDateTime;
 import org.apache.camel.Exchange;
 import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.model.dataformat.JsonLibrary;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
 import org.mifos.connector.airtel.dto.AirtelProps;
 import org.mifos.connector.airtel.dto.AuthResponseDto;
-import org.mifos.connector.airtel.store.AccessTokenStore;
 import org.mifos.connector.airtel.util.ConnectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,27 +21,23 @@ import org.springframework.stereotype.Component;
 @Component
 public class AuthRouteBuilder extends RouteBuilder {
     private static final Logger logger = LoggerFactory.getLogger(AuthRouteBuilder.class);
-    private final AccessTokenStore accessTokenStore;
     private final AirtelProps airtelProps;
+    private final AirtelApiGuard airtelApiGuard;
 
-    public AuthRouteBuilder(AccessTokenStore accessTokenStore, AirtelProps airtelProps) {
-        this.accessTokenStore = accessTokenStore;
+    public AuthRouteBuilder(AirtelProps airtelProps, AirtelApiGuard airtelApiGuard) {
         this.airtelProps = airtelProps;
+        this.airtelApiGuard = airtelApiGuard;
     }
 
     @Override
     public void configure() {
 
         /*
-          Access Token check validity and return value
+          Fetches a new access token. Only called by AccessTokenStore, which makes sure a single
+          refresh is in flight at a time.
          */
         from("direct:get-access-token")
             .id("get-access-token")
-            .choice()
-            .when(exchange -> accessTokenStore.isValid(LocalDateTime.now()))
-            .log("Access token valid. Continuing.")
-            .otherwise()
-            .log("Access token expired or not present")
             .to("direct:access-token-fetch")
             .choice()
             .when(header("CamelHttpResponseCode").isEqualTo("200"))
@@ -53,30 +49,35 @@ public class AuthRouteBuilder extends RouteBuilder {
 
 
         /*
-          Fetches Access Token from Airtel API
+          Fetches Access Token from Airtel API, guarded by the auth circuit breaker and bulkhead
+          of the credential set
          */
         from("direct:access-token-fetch")
             .id("access-token-fetch")
             .log(LoggingLevel.INFO, "Fetching access token")
             .setHeader(Exchange.HTTP_METHOD, constant("POST"))
             .setHeader("Content-Type", constant("application/json"))
-            .setBody(exchange -> airtelProps.getCredentials())
+            .setBody(exchange -> exchange.getProperty(AUTH_CREDENTIALS,
+                airtelProps.getCredentials(), AirtelProps.Credentials.class))
             .marshal().json(JsonLibrary.Jackson)
-            .toD(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getAuthEndpoint()
+            .process(airtelApiGuard.acquire("auth"))
+            .doTry()
+            .to(airtelProps.getApi().getBaseUrl() + airtelProps.getApi().getAuthEndpoint()
                 + "?bridgeEndpoint=true&throwExceptionOnFailure=false&"
-                + ConnectionUtils.getConnectionTimeoutDsl(airtelProps.getTimeout()));
+                + ConnectionUtils.getConnectionTimeoutDsl(airtelProps.getTimeout()))
+            .doFinally()
+            .process(airtelApiGuard::release)
+            .end();
 
         /*
-          Saves Access Token to AccessTokenStore
+          Parses the Access Token response, AccessTokenStore takes it from the body
          */
         from("direct:access-token-save")
             .id("access-token-save")
             .unmarshal().json(AuthResponseDto.class)
             .process(exchange -> {
                 AuthResponseDto response = exchange.getIn().getBody(AuthResponseDto.class);
-                accessTokenStore.setAccessToken(response.accessToken());
-                accessTokenStore.setExpiresOn(response.expiresIn());
-                logger.info("Saved Access Token: " + accessTokenStore.getAccessToken());
+                logger.info("Fetched Access Token expiring in {}s", response.expiresIn());
             });
 
         /*
@@ -88,6 +89,7 @@ public class AuthRouteBuilder extends RouteBuilder {
                 String body = exchange.getIn().getBody(String.class);
                 logger.error(body);
                 exchange.setProperty(ERROR_INFORMATION, body);
+                exchange.getIn().setBody(null);
             });
 
     }
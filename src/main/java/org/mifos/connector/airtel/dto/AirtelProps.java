@@ -1,6 +1,8 @@
 package org.mifos.connector.airtel.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -12,8 +14,21 @@ import org.springframework.stereotype.Component;
 public class AirtelProps {
     private Api api;
     private Credentials credentials;
+    private Map<String, Credentials> countryCredentials;
     private int maxRetryCount;
     private int timeout;
+    private Duration tokenRefreshSkew;
+    private Duration tokenRefreshFailureBackoff;
+    private Http http;
+    private Callback callback;
+    private TransactionState transactionState;
+    private Idempotency idempotency;
+    private Resilience resilience;
+    private RateLimit rateLimit;
+    private Poll poll;
+    private StatusPoller statusPoller;
+    private Variables variables;
+    private Deadline deadline;
 
     public Api getApi() {
         return api;
@@ -31,6 +46,14 @@ public class AirtelProps {
         this.credentials = credentials;
     }
 
+    public Map<String, Credentials> getCountryCredentials() {
+        return countryCredentials;
+    }
+
+    public void setCountryCredentials(Map<String, Credentials> countryCredentials) {
+        this.countryCredentials = countryCredentials;
+    }
+
     public int getMaxRetryCount() {
         return maxRetryCount;
     }
@@ -47,6 +70,102 @@ public class AirtelProps {
         this.timeout = timeout;
     }
 
+    public Duration getTokenRefreshSkew() {
+        return tokenRefreshSkew;
+    }
+
+    public void setTokenRefreshSkew(Duration tokenRefreshSkew) {
+        this.tokenRefreshSkew = tokenRefreshSkew;
+    }
+
+    public Duration getTokenRefreshFailureBackoff() {
+        return tokenRefreshFailureBackoff;
+    }
+
+    public void setTokenRefreshFailureBackoff(Duration tokenRefreshFailureBackoff) {
+        this.tokenRefreshFailureBackoff = tokenRefreshFailureBackoff;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public void setHttp(Http http) {
+        this.http = http;
+    }
+
+    public Callback getCallback() {
+        return callback;
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
+    }
+
+    public TransactionState getTransactionState() {
+        return transactionState;
+    }
+
+    public void setTransactionState(TransactionState transactionState) {
+        this.transactionState = transactionState;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public void setResilience(Resilience resilience) {
+        this.resilience = resilience;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Poll getPoll() {
+        return poll;
+    }
+
+    public void setPoll(Poll poll) {
+        this.poll = poll;
+    }
+
+    public StatusPoller getStatusPoller() {
+        return statusPoller;
+    }
+
+    public void setStatusPoller(StatusPoller statusPoller) {
+        this.statusPoller = statusPoller;
+    }
+
+    public Variables getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Variables variables) {
+        this.variables = variables;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
     /**
      * Holds the relevant Airtel endpoints.
      */
@@ -126,4 +245,445 @@ public class AirtelProps {
             this.grantType = grantType;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Holds the connection pool settings of the HTTP client shared by all Airtel calls.
+     */
+    public static class Http {
+        private int maxConnections;
+        private int maxConnectionsPerRoute;
+        private Duration keepAlive;
+        private Duration idleEvictionTimeout;
+        private int tlsSessionCacheSize;
+        private Duration tlsSessionTimeout;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Duration getIdleEvictionTimeout() {
+            return idleEvictionTimeout;
+        }
+
+        public void setIdleEvictionTimeout(Duration idleEvictionTimeout) {
+            this.idleEvictionTimeout = idleEvictionTimeout;
+        }
+
+        public int getTlsSessionCacheSize() {
+            return tlsSessionCacheSize;
+        }
+
+        public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+            this.tlsSessionCacheSize = tlsSessionCacheSize;
+        }
+
+        public Duration getTlsSessionTimeout() {
+            return tlsSessionTimeout;
+        }
+
+        public void setTlsSessionTimeout(Duration tlsSessionTimeout) {
+            this.tlsSessionTimeout = tlsSessionTimeout;
+        }
+    }
+
+    /**
+     * Holds the settings of the queue Airtel callbacks are handed to before being published to
+     * zeebe.
+     */
+    public static class Callback {
+        private int queueSize;
+        private int consumers;
+        private long dedupeMaxSize;
+        private Duration dedupeTtl;
+        private boolean dedupeAcrossReplicas;
+        private int maxRedeliveries;
+        private Duration redeliveryDelay;
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getConsumers() {
+            return consumers;
+        }
+
+        public void setConsumers(int consumers) {
+            this.consumers = consumers;
+        }
+
+        public long getDedupeMaxSize() {
+            return dedupeMaxSize;
+        }
+
+        public void setDedupeMaxSize(long dedupeMaxSize) {
+            this.dedupeMaxSize = dedupeMaxSize;
+        }
+
+        public Duration getDedupeTtl() {
+            return dedupeTtl;
+        }
+
+        public void setDedupeTtl(Duration dedupeTtl) {
+            this.dedupeTtl = dedupeTtl;
+        }
+
+        public boolean isDedupeAcrossReplicas() {
+            return dedupeAcrossReplicas;
+        }
+
+        public void setDedupeAcrossReplicas(boolean dedupeAcrossReplicas) {
+            this.dedupeAcrossReplicas = dedupeAcrossReplicas;
+        }
+
+        public int getMaxRedeliveries() {
+            return maxRedeliveries;
+        }
+
+        public void setMaxRedeliveries(int maxRedeliveries) {
+            this.maxRedeliveries = maxRedeliveries;
+        }
+
+        public Duration getRedeliveryDelay() {
+            return redeliveryDelay;
+        }
+
+        public void setRedeliveryDelay(Duration redeliveryDelay) {
+            this.redeliveryDelay = redeliveryDelay;
+        }
+    }
+
+    /**
+     * Holds the settings of the index of transactions that have reached a final state.
+     */
+    public static class TransactionState {
+        private long maxSize;
+        private Duration ttl;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Holds the settings of the store of collection requests sent to Airtel.
+     */
+    public static class Idempotency {
+        private long maxSize;
+        private Duration ttl;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Holds the circuit breaker and bulkhead settings applied to each Airtel endpoint per
+     * country.
+     */
+    public static class Resilience {
+        private float failureRateThreshold;
+        private int slidingWindowSize;
+        private int minimumNumberOfCalls;
+        private Duration waitDurationInOpenState;
+        private int permittedCallsInHalfOpenState;
+        private int maxConcurrentCalls;
+        private Duration maxWaitDuration;
+        private Duration retryBackoff;
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public Duration getWaitDurationInOpenState() {
+            return waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWaitDuration() {
+            return maxWaitDuration;
+        }
+
+        public void setMaxWaitDuration(Duration maxWaitDuration) {
+            this.maxWaitDuration = maxWaitDuration;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+    }
+
+    /**
+     * Holds the rate limits applied to each Airtel endpoint per credential set.
+     */
+    public static class RateLimit {
+        private Duration limitRefreshPeriod;
+        private Duration maxWait;
+        private Map<String, Integer> limits;
+
+        public Duration getLimitRefreshPeriod() {
+            return limitRefreshPeriod;
+        }
+
+        public void setLimitRefreshPeriod(Duration limitRefreshPeriod) {
+            this.limitRefreshPeriod = limitRefreshPeriod;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Map<String, Integer> getLimits() {
+            return limits;
+        }
+
+        public void setLimits(Map<String, Integer> limits) {
+            this.limits = limits;
+        }
+    }
+
+    /**
+     * Holds the settings used to pick transaction status poll timers from observed settlement
+     * times.
+     */
+    public static class Poll {
+        private boolean adaptive;
+        private double percentile;
+        private double jitter;
+        private Duration minDelay;
+        private Duration maxDelay;
+        private int minSamples;
+        private int windowSize;
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+    }
+
+    /**
+     * Holds the settings of the in-connector transaction status poller.
+     */
+    public static class StatusPoller {
+        private boolean enabled;
+        private int parallelism;
+        private int maxPending;
+        private Duration backstopTimer;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+
+        public Duration getBackstopTimer() {
+            return backstopTimer;
+        }
+
+        public void setBackstopTimer(Duration backstopTimer) {
+            this.backstopTimer = backstopTimer;
+        }
+    }
+
+    /**
+     * Holds the settings of the zeebe variables published by the connector.
+     */
+    public static class Variables {
+        private boolean capturePayloads;
+
+        public boolean isCapturePayloads() {
+            return capturePayloads;
+        }
+
+        public void setCapturePayloads(boolean capturePayloads) {
+            this.capturePayloads = capturePayloads;
+        }
+    }
+
+    /**
+     * Holds the settings bounding Airtel calls by the deadline of their zeebe job.
+     */
+    public static class Deadline {
+        private Duration reserve;
+        private Duration minBudget;
+
+        public Duration getReserve() {
+            return reserve;
+        }
+
+        public void setReserve(Duration reserve) {
+            this.reserve = reserve;
+        }
+
+        public Duration getMinBudget() {
+            return minBudget;
+        }
+
+        public void setMinBudget(Duration minBudget) {
+            this.minBudget = minBudget;
+        }
+    }
+}
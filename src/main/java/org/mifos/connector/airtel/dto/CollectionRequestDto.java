@@ -1,13 +1,19 @@
 package org.mifos.connector.airtel.dto;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.Map;
-import org.json.JSONObject;
 
 /**
  * DTO representing collection request body.
  */
 public class CollectionRequestDto {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private String reference;
     private Subscriber subscriber;
     private Transaction transaction;
@@ -140,31 +146,67 @@ public class CollectionRequestDto {
     }
 
     /**
-     * Creates a {@link CollectionRequestDto} using data from the channel request body.
+     * Creates a {@link CollectionRequestDto} using data from the channel request body. The channel
+     * request is read in a single streaming pass which only picks up {@code amount.amount},
+     * {@code amount.currency} and {@code payer.partyIdInfo.partyIdentifier}, every other field
+     * is skipped without being materialized.
      *
-     * @param channelRequest {@link JSONObject}
+     * @param channelRequest the channel request JSON
      * @param transactionId  ID of the transaction
      * @param countryCodes   a map with currency as key and country code as value
      * @param transactionIdPrefix prefix to be included in the transaction ID
      * @return {@link CollectionRequestDto}
+     * @throws IllegalArgumentException if a required field is missing from the channel request
+     * @throws UncheckedIOException     if the channel request isn't valid JSON
      */
     public static CollectionRequestDto fromChannelRequest(
-        JSONObject channelRequest, String transactionId, Map<String, String> countryCodes,
+        String channelRequest, String transactionId, Map<String, String> countryCodes,
         String transactionIdPrefix) {
-        JSONObject amountJson = channelRequest.getJSONObject("amount");
+        ChannelRequestFields fields = new ChannelRequestFields();
+        try (JsonParser parser = JSON_FACTORY.createParser(channelRequest)) {
+            parser.nextToken();
+            readObject(parser, name -> {
+                switch (name) {
+                    case "amount" -> readObject(parser, field -> {
+                        switch (field) {
+                            case "amount" -> fields.amount = readDecimal(parser);
+                            case "currency" -> fields.currency = parser.getText();
+                            default -> parser.skipChildren();
+                        }
+                    });
+                    case "payer" -> readObject(parser, field -> {
+                        if ("partyIdInfo".equals(field)) {
+                            readObject(parser, idField -> {
+                                if ("partyIdentifier".equals(idField)) {
+                                    fields.partyIdentifier = parser.getText();
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            });
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    default -> parser.skipChildren();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read channel request", e);
+        }
+        fields.validate();
+
         Subscriber subscriber = new Subscriber();
-        String currency = amountJson.getString("currency");
+        String currency = fields.currency;
         String country = countryCodes.get(currency.toLowerCase());
         subscriber.currency = currency;
         subscriber.country = country;
-        String phoneNumber = channelRequest.getJSONObject("payer")
-            .getJSONObject("partyIdInfo").getString("partyIdentifier");
+        String phoneNumber = fields.partyIdentifier;
         // Remove country code in phone number
         subscriber.msisdn = phoneNumber.startsWith("+")
             ? Long.valueOf(phoneNumber.substring(4)) :
             Long.valueOf(phoneNumber.substring(3));
         Transaction transaction = new Transaction();
-        transaction.amount = amountJson.getBigDecimal("amount");
+        transaction.amount = fields.amount;
         transaction.currency = currency;
         transaction.country = country;
         transaction.id = transactionIdPrefix != null && !transactionIdPrefix.isBlank()
@@ -175,4 +217,58 @@ public class CollectionRequestDto {
         collectionRequestDto.transaction = transaction;
         return collectionRequestDto;
     }
+
+    /**
+     * Walks the fields of the object the parser is positioned on, moving the parser to the value
+     * of each field before handing over its name. Values that aren't objects are skipped.
+     *
+     * @param parser {@link JsonParser} positioned on the start of an object
+     * @param reader reads or skips the value of a field
+     * @throws IOException if the JSON can't be read
+     */
+    private static void readObject(JsonParser parser, FieldReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            reader.read(name);
+        }
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_STRING
+            ? new BigDecimal(parser.getText().trim()) : parser.getDecimalValue();
+    }
+
+    /**
+     * Reads the value of a single JSON field.
+     */
+    @FunctionalInterface
+    private interface FieldReader {
+        void read(String name) throws IOException;
+    }
+
+    /**
+     * Fields picked up from the channel request.
+     */
+    private static class ChannelRequestFields {
+        private BigDecimal amount;
+        private String currency;
+        private String partyIdentifier;
+
+        private void validate() {
+            requireField(amount, "amount.amount");
+            requireField(currency, "amount.currency");
+            requireField(partyIdentifier, "payer.partyIdInfo.partyIdentifier");
+        }
+
+        private static void requireField(Object value, String field) {
+            if (value == null) {
+                throw new IllegalArgumentException("Channel request is missing " + field);
+            }
+        }
+    }
 }
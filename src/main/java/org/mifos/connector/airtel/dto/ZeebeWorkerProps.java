@@ -0,0 +1,174 @@
+package org.mifos.connector.airtel.dto;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the zeebe job worker settings of each job type, keyed by job type.
+ */
+@Component
+@ConfigurationProperties(prefix = "zeebe")
+public class ZeebeWorkerProps {
+    private Map<String, Worker> workers = new HashMap<>();
+
+    public Map<String, Worker> getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(Map<String, Worker> workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Returns the settings of the given job type, or the defaults if it has none.
+     *
+     * @param jobType type of the jobs handled by the worker
+     * @return {@link Worker}
+     */
+    public Worker getWorker(String jobType) {
+        return workers.getOrDefault(jobType, new Worker());
+    }
+
+    /**
+     * Holds the settings of a job worker. Unset values fall back to the zeebe client defaults.
+     * The max active jobs falls back to the threads plus the queue size of the worker's own pool,
+     * or to {@code zeebe.client.evenly-allocated-max-jobs} when it has none.
+     */
+    public static class Worker {
+        private Integer maxJobsActive;
+        private Duration pollInterval;
+        private Duration requestTimeout;
+        private Duration timeout;
+        private int threads;
+        private int queueSize;
+        private Duration rejectionBackoff;
+        private Limit limit;
+
+        public Integer getMaxJobsActive() {
+            return maxJobsActive;
+        }
+
+        public void setMaxJobsActive(Integer maxJobsActive) {
+            this.maxJobsActive = maxJobsActive;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public Duration getRejectionBackoff() {
+            return rejectionBackoff;
+        }
+
+        public void setRejectionBackoff(Duration rejectionBackoff) {
+            this.rejectionBackoff = rejectionBackoff;
+        }
+
+        public Limit getLimit() {
+            return limit;
+        }
+
+        public void setLimit(Limit limit) {
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Holds the settings of the adaptive limit on the jobs of a type handled at once.
+     */
+    public static class Limit {
+        private boolean enabled;
+        private int initial;
+        private int min;
+        private int max;
+        private double backoffRatio;
+        private Duration latencyThreshold;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitial() {
+            return initial;
+        }
+
+        public void setInitial(int initial) {
+            this.initial = initial;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public void setMin(int min) {
+            this.min = min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public void setMax(int max) {
+            this.max = max;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+}
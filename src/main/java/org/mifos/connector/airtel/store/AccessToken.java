@@ -0,0 +1,52 @@
+package org.mifos.connector.airtel.store;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable snapshot of an Airtel access token.
+ *
+ * @param value     the bearer token
+ * @param expiresAt instant at which the token stops being accepted by Airtel
+ * @param refreshAt instant from which the token is due for refresh
+ */
+public record AccessToken(String value, Instant expiresAt, Instant refreshAt) {
+
+    /**
+     * Placeholder used before the first token has been fetched.
+     */
+    public static final AccessToken EXPIRED = new AccessToken(null, Instant.EPOCH, Instant.EPOCH);
+
+    /**
+     * Creates a token that expires the given number of seconds from now. The token is due for
+     * refresh the given skew ahead of its expiry, but never before half of its lifetime has
+     * passed, so short-lived tokens aren't refreshed on every use.
+     *
+     * @param value     the bearer token
+     * @param expiresIn lifetime of the token in seconds
+     * @param skew      how long before expiry the token should be refreshed
+     * @return {@link AccessToken}
+     */
+    public static AccessToken of(String value, int expiresIn, Duration skew) {
+        Instant now = Instant.now();
+        Duration lifetime = Duration.ofSeconds(Math.max(expiresIn, 0));
+        Duration cappedSkew = skew.compareTo(lifetime.dividedBy(2)) > 0
+            ? lifetime.dividedBy(2) : skew;
+        Instant expiresAt = now.plus(lifetime);
+        return new AccessToken(value, expiresAt, expiresAt.minus(cappedSkew));
+    }
+
+    public boolean isValid(Instant instant) {
+        return value != null && instant.isBefore(expiresAt);
+    }
+
+    /**
+     * Checks if the token is close enough to its expiry that it should be refreshed.
+     *
+     * @param instant the instant to check against
+     * @return true if the token should be refreshed
+     */
+    public boolean isDueForRefresh(Instant instant) {
+        return !isValid(instant) || !instant.isBefore(refreshAt);
+    }
+}
@@ -0,0 +1,12 @@
+package org.mifos.connector.airtel.store;
+
+/**
+ * Thrown when an Airtel access token can't be fetched, in which case no call needing it has been
+ * sent.
+ */
+public class AccessTokenException extends RuntimeException {
+
+    public AccessTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,37 +1,322 @@
 package org.mifos.connector.airtel.store;
 
-import java.time.LocalDateTime;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.AUTH_CREDENTIALS;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ERROR_INFORMATION;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PreDestroy;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineExceededException;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.dto.AuthResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
 /**
- * Contains access token information.
+ * Holds an access token per Airtel credential set and keeps each of them fresh.
+ *
+ * <p>Credentials configured under {@code airtel.country-credentials} get their own token, any
+ * other country uses the default {@code airtel.credentials}. Country codes are matched
+ * regardless of case. The country to token mapping is built once at startup and never modified,
+ * so lookups don't contend on a lock.</p>
+ *
+ * <p>Each token is an immutable {@link AccessToken} swapped atomically, so readers never see a
+ * half-written token. At most one refresh per credential set is in flight at a time; callers
+ * that find the token expired wait on that refresh instead of starting their own. A refresh is
+ * also scheduled in the background ahead of expiry, so under normal operation callers never wait
+ * at all. A failed refresh stays in place for {@code airtel.token-refresh-failure-backoff}, so
+ * callers fail fast during an auth outage instead of each starting a new fetch.</p>
+ *
+ * <p>Fetches run on a cached pool, so a slow fetch for one credential set doesn't hold up the
+ * refresh of the others. The scheduler only fires the background refresh timers.</p>
  */
 @Component
 public class AccessTokenStore {
-    private String accessToken;
-    private LocalDateTime expiresOn;
+    public static final String DEFAULT_CREDENTIALS = "default";
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenStore.class);
+    private final ProducerTemplate producerTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration refreshSkew;
+    private final Duration failureBackoff;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService fetchExecutor;
+    private final TokenHolder defaultToken;
+    private final Map<String, TokenHolder> countryTokens;
 
-    public AccessTokenStore() {
-        this.expiresOn = LocalDateTime.now();
+    /**
+     * Creates an instance of {@link AccessTokenStore} with all required params.
+     *
+     * @param producerTemplate {@link ProducerTemplate}
+     * @param airtelProps      {@link AirtelProps}
+     * @param meterRegistry    {@link MeterRegistry}
+     */
+    public AccessTokenStore(ProducerTemplate producerTemplate, AirtelProps airtelProps,
+                            MeterRegistry meterRegistry) {
+        this.producerTemplate = producerTemplate;
+        this.meterRegistry = meterRegistry;
+        this.refreshSkew = airtelProps.getTokenRefreshSkew();
+        this.failureBackoff = airtelProps.getTokenRefreshFailureBackoff();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            daemonThreadFactory("airtel-token-refresh-"));
+        this.fetchExecutor = Executors.newCachedThreadPool(
+            daemonThreadFactory("airtel-token-fetch-"));
+        this.defaultToken = new TokenHolder(DEFAULT_CREDENTIALS, airtelProps.getCredentials());
+        Map<String, TokenHolder> tokens = new HashMap<>();
+        if (airtelProps.getCountryCredentials() != null) {
+            airtelProps.getCountryCredentials().forEach((country, credentials) -> {
+                String key = country.toUpperCase(Locale.ROOT);
+                tokens.put(key, new TokenHolder(key, credentials));
+            });
+        }
+        this.countryTokens = Map.copyOf(tokens);
     }
 
+    /**
+     * Returns a valid access token for the default credentials.
+     *
+     * @return the bearer token
+     */
     public String getAccessToken() {
-        return accessToken;
+        return defaultToken.getAccessToken(null);
+    }
+
+    /**
+     * Returns a valid access token for the credentials used in the given country, waiting for an
+     * in-flight refresh only if the current token has already expired.
+     *
+     * @param country the country code sent to Airtel in the X-Country header
+     * @return the bearer token
+     */
+    public String getAccessToken(String country) {
+        return tokenHolder(country).getAccessToken(null);
+    }
+
+    /**
+     * Returns a valid access token for the credentials used in the given country, waiting for an
+     * in-flight refresh no longer than the given time. The refresh itself carries on for the
+     * other callers.
+     *
+     * @param country the country code sent to Airtel in the X-Country header
+     * @param maxWait max time to wait for a refresh, or null to wait until it completes
+     * @return the bearer token
+     * @throws JobDeadlineExceededException if the refresh doesn't complete in time
+     */
+    public String getAccessToken(String country, Duration maxWait) {
+        return tokenHolder(country).getAccessToken(maxWait);
+    }
+
+    /**
+     * Returns the key of the credential set used in the given country.
+     *
+     * @param country the country code sent to Airtel in the X-Country header
+     * @return the upper case country code if it has its own credentials, otherwise
+     *     {@link #DEFAULT_CREDENTIALS}
+     */
+    public String getCredentialsKey(String country) {
+        return tokenHolder(country).key;
+    }
+
+    public boolean isValid(String country, Instant instant) {
+        return tokenHolder(country).accessToken.get().isValid(instant);
     }
 
-    public void setAccessToken(String accessToken) {
-        this.accessToken = accessToken;
+    /**
+     * Starts a refresh for the credentials used in the given country unless one is already in
+     * flight, in which case that one is returned. No refresh is started if the current token
+     * isn't due for refresh yet.
+     *
+     * @param country the country code sent to Airtel in the X-Country header
+     * @return a future holding the refreshed token
+     */
+    public CompletableFuture<AccessToken> refresh(String country) {
+        return tokenHolder(country).refresh();
     }
 
-    public LocalDateTime getExpiresOn() {
-        return expiresOn;
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        fetchExecutor.shutdownNow();
     }
 
-    public void setExpiresOn(int expiresIn) {
-        this.expiresOn = LocalDateTime.now().plusSeconds(expiresIn);
+    private static CustomizableThreadFactory daemonThreadFactory(String threadNamePrefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
     }
 
-    public boolean isValid(LocalDateTime dateTime) {
-        return dateTime.isBefore(expiresOn);
+    private TokenHolder tokenHolder(String country) {
+        if (country == null) {
+            return defaultToken;
+        }
+        TokenHolder holder = countryTokens.get(country.toUpperCase(Locale.ROOT));
+        return holder != null ? holder : defaultToken;
+    }
+
+    /**
+     * Token and refresh state of a single credential set.
+     */
+    private class TokenHolder {
+        private final String key;
+        private final AirtelProps.Credentials credentials;
+        private final AtomicReference<AccessToken> accessToken =
+            new AtomicReference<>(AccessToken.EXPIRED);
+        private final AtomicReference<CompletableFuture<AccessToken>> pendingRefresh =
+            new AtomicReference<>();
+
+        TokenHolder(String key, AirtelProps.Credentials credentials) {
+            this.key = key;
+            this.credentials = credentials;
+        }
+
+        String getAccessToken(Duration maxWait) {
+            Instant now = Instant.now();
+            AccessToken token = accessToken.get();
+            if (token.isValid(now)) {
+                if (token.isDueForRefresh(now)) {
+                    refresh();
+                }
+                return token.value();
+            }
+            logger.info("Access token for {} credentials expired or not present", key);
+            if (maxWait == null) {
+                return refresh().join().value();
+            }
+            try {
+                return refresh().get(maxWait.toMillis(), TimeUnit.MILLISECONDS).value();
+            } catch (TimeoutException e) {
+                throw new JobDeadlineExceededException("Access token for " + key
+                    + " credentials not refreshed within " + maxWait);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }
+
+        CompletableFuture<AccessToken> refresh() {
+            while (true) {
+                CompletableFuture<AccessToken> pending = pendingRefresh.get();
+                if (pending != null) {
+                    return pending;
+                }
+                CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+                if (pendingRefresh.compareAndSet(null, refresh)) {
+                    // A refresh may have completed since the caller found the token stale
+                    Instant now = Instant.now();
+                    AccessToken current = accessToken.get();
+                    if (current.isValid(now) && !current.isDueForRefresh(now)) {
+                        pendingRefresh.compareAndSet(refresh, null);
+                        return CompletableFuture.completedFuture(current);
+                    }
+                    fetchExecutor.execute(() -> fetch(refresh));
+                    return refresh;
+                }
+            }
+        }
+
+        /**
+         * Fetches a new token through the auth route and publishes it to readers. Each fetch is
+         * timed in {@code airtel.token.refresh}, tagged by credential set and outcome.
+         *
+         * @param refresh the future to complete with the new token
+         */
+        private void fetch(CompletableFuture<AccessToken> refresh) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "failure";
+            try {
+                Exchange exchange = producerTemplate.send("direct:get-access-token",
+                    ex -> {
+                        ex.setProperty(AUTH_CREDENTIALS, credentials);
+                        ex.setProperty(COUNTRY, key);
+                    });
+                if (exchange.getException() != null) {
+                    throw exchange.getException();
+                }
+                AuthResponseDto response = exchange.getIn().getBody(AuthResponseDto.class);
+                if (response == null) {
+                    throw new IllegalStateException("Access token fetch failed: "
+                        + exchange.getProperty(ERROR_INFORMATION, String.class));
+                }
+                AccessToken token = AccessToken.of(response.accessToken(), response.expiresIn(),
+                    refreshSkew);
+                accessToken.set(token);
+                scheduleRefresh(token);
+                outcome = "success";
+                refresh.complete(token);
+            } catch (Exception e) {
+                logger.error("Unable to refresh access token for {} credentials", key, e);
+                refresh.completeExceptionally(new AccessTokenException(
+                    "Unable to refresh access token for " + key + " credentials", e));
+            } finally {
+                if ("success".equals(outcome)) {
+                    pendingRefresh.compareAndSet(refresh, null);
+                } else {
+                    clearAfterBackoff(refresh);
+                }
+                sample.stop(Timer.builder("airtel.token.refresh")
+                    .description("Time taken to fetch Airtel access tokens")
+                    .tag("credentials", key)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            }
+        }
+
+        /**
+         * Keeps a failed refresh as the pending one until the failure backoff has passed, so
+         * callers fail fast instead of each starting a new fetch while Airtel is unavailable.
+         *
+         * @param refresh the failed refresh
+         */
+        private void clearAfterBackoff(CompletableFuture<AccessToken> refresh) {
+            if (failureBackoff == null || failureBackoff.isZero() || failureBackoff.isNegative()) {
+                pendingRefresh.compareAndSet(refresh, null);
+                return;
+            }
+            try {
+                scheduler.schedule(() -> pendingRefresh.compareAndSet(refresh, null),
+                    failureBackoff.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                pendingRefresh.compareAndSet(refresh, null);
+            }
+        }
+
+        /**
+         * Schedules a background refresh ahead of the token expiry. The refresh is skipped if the
+         * token has been replaced in the meantime.
+         *
+         * @param token the token that was just fetched
+         */
+        private void scheduleRefresh(AccessToken token) {
+            long delay = Duration.between(Instant.now(), token.refreshAt()).toMillis();
+            if (delay <= 0) {
+                return;
+            }
+            scheduler.schedule(() -> {
+                if (accessToken.get() == token) {
+                    refresh();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
     }
 }
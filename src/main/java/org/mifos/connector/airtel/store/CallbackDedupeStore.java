@@ -0,0 +1,82 @@
+package org.mifos.connector.airtel.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the Airtel callbacks that have already been published to zeebe, so that callbacks
+ * redelivered by Airtel are dropped instead of being published again.
+ *
+ * <p>Entries are keyed by Airtel transaction ID and status code, are bounded in number and expire
+ * after {@code airtel.callback.dedupe-ttl}. The store is local to this replica; with
+ * {@code airtel.callback.dedupe-across-replicas} the callback key is also sent to zeebe as the
+ * message ID, so that the broker rejects duplicates received by other replicas while the first
+ * message is still buffered.</p>
+ */
+@Component
+public class CallbackDedupeStore {
+    private final Cache<String, Boolean> publishedCallbacks;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates an instance of {@link CallbackDedupeStore} with all required params.
+     *
+     * @param airtelProps   {@link AirtelProps}
+     * @param meterRegistry {@link MeterRegistry}
+     */
+    public CallbackDedupeStore(AirtelProps airtelProps, MeterRegistry meterRegistry) {
+        AirtelProps.Callback callback = airtelProps.getCallback();
+        this.publishedCallbacks = Caffeine.newBuilder()
+            .maximumSize(callback.getDedupeMaxSize())
+            .expireAfterWrite(callback.getDedupeTtl())
+            .build();
+        this.hits = Counter.builder("airtel.callback.dedupe")
+            .tag("result", "hit")
+            .description("Airtel callbacks dropped because they had already been published")
+            .register(meterRegistry);
+        this.misses = Counter.builder("airtel.callback.dedupe")
+            .tag("result", "miss")
+            .description("Airtel callbacks seen for the first time")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the key identifying a callback.
+     *
+     * @param transactionId Airtel transaction ID
+     * @param statusCode    status code received in the callback
+     * @return the callback key
+     */
+    public static String key(String transactionId, String statusCode) {
+        return transactionId + ':' + statusCode;
+    }
+
+    /**
+     * Records the callback unless it has already been recorded.
+     *
+     * @param key the callback key, see {@link #key(String, String)}
+     * @return true if this is the first time the callback is seen
+     */
+    public boolean markPublished(String key) {
+        if (publishedCallbacks.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+            misses.increment();
+            return true;
+        }
+        hits.increment();
+        return false;
+    }
+
+    /**
+     * Removes a callback, used when publishing it failed so that a redelivery is handled.
+     *
+     * @param key the callback key, see {@link #key(String, String)}
+     */
+    public void forget(String key) {
+        publishedCallbacks.invalidate(key);
+    }
+}
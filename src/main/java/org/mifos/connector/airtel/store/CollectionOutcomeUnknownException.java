@@ -0,0 +1,12 @@
+package org.mifos.connector.airtel.store;
+
+/**
+ * Thrown when a collection request failed after it may have reached Airtel, so whether the
+ * collection was initiated is unknown.
+ */
+public class CollectionOutcomeUnknownException extends RuntimeException {
+
+    public CollectionOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,125 @@
+package org.mifos.connector.airtel.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineGuard;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the collection requests sent to Airtel, keyed by zeebe transaction ID, so that
+ * a retried {@code init-airtel-transfer} job doesn't send the same collection request again.
+ *
+ * <p>A retried job attaches to the request that is still in flight, or reuses the outcome of the
+ * request that has already completed. Requests that fail before reaching Airtel, because the
+ * call was rejected or skipped, the access token couldn't be fetched or the connection couldn't
+ * be established, are forgotten so the next retry sends the request again. Any other failure,
+ * like a read timeout, may have happened after Airtel received the request. Those requests are
+ * kept with a {@link CollectionOutcomeUnknownException}, so that retries don't send the request
+ * again and push a second payment prompt to the subscriber.</p>
+ */
+@Component
+public class CollectionRequestStore {
+    private static final Logger logger = LoggerFactory.getLogger(CollectionRequestStore.class);
+    private final Cache<String, CompletableFuture<Map<String, Object>>> collectionRequests;
+
+    /**
+     * Creates an instance of {@link CollectionRequestStore} with all required params.
+     *
+     * @param airtelProps {@link AirtelProps}
+     */
+    public CollectionRequestStore(AirtelProps airtelProps) {
+        AirtelProps.Idempotency idempotency = airtelProps.getIdempotency();
+        this.collectionRequests = Caffeine.newBuilder()
+            .maximumSize(idempotency.getMaxSize())
+            .expireAfterWrite(idempotency.getTtl())
+            .build();
+    }
+
+    /**
+     * Sends the collection request unless one has already been sent for the transaction.
+     *
+     * @param transactionId zeebe transaction ID
+     * @param request       sends the collection request, returning the resulting zeebe variables
+     * @return a future holding the zeebe variables resulting from the collection request, failed
+     *     with a {@link CollectionOutcomeUnknownException} if the request may have reached Airtel
+     */
+    public CompletableFuture<Map<String, Object>> submit(
+        String transactionId, Supplier<CompletableFuture<Map<String, Object>>> request) {
+        CompletableFuture<Map<String, Object>> outcome = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = collectionRequests.asMap()
+            .putIfAbsent(transactionId, outcome);
+        if (existing != null) {
+            logger.info("Collection request for transaction {} has already been sent, reusing "
+                + "its outcome", transactionId);
+            return existing;
+        }
+        try {
+            request.get().whenComplete((variables, throwable) -> {
+                if (throwable != null && isNotSent(throwable)) {
+                    collectionRequests.asMap().remove(transactionId, outcome);
+                    outcome.completeExceptionally(throwable);
+                } else if (throwable != null) {
+                    logger.warn("Collection request for transaction {} failed after it may have "
+                        + "reached Airtel, it won't be sent again", transactionId);
+                    outcome.completeExceptionally(new CollectionOutcomeUnknownException(
+                        "Outcome of the collection request for transaction " + transactionId
+                            + " is unknown", throwable));
+                } else {
+                    outcome.complete(variables);
+                }
+            });
+        } catch (RuntimeException e) {
+            collectionRequests.asMap().remove(transactionId, outcome);
+            throw e;
+        }
+        return outcome;
+    }
+
+    /**
+     * Checks if the throwable, or any of its causes, is a
+     * {@link CollectionOutcomeUnknownException}.
+     *
+     * @param throwable the failure of a collection request
+     * @return true if the collection request may have reached Airtel
+     */
+    public static boolean isOutcomeUnknown(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CollectionOutcomeUnknownException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a collection request failed before it could reach Airtel.
+     *
+     * @param throwable the failure of a collection request
+     * @return true if the request certainly wasn't received by Airtel
+     */
+    private static boolean isNotSent(Throwable throwable) {
+        if (AirtelApiGuard.isRejectedCall(throwable)
+            || JobDeadlineGuard.isDeadlineExceeded(throwable)) {
+            return true;
+        }
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AccessTokenException
+                || cause instanceof ConnectException
+                || cause instanceof ConnectTimeoutException
+                || cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
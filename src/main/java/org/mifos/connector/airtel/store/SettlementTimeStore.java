@@ -0,0 +1,196 @@
+package org.mifos.connector.airtel.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.util.ZeebeUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records how long Airtel takes to settle transactions per country and currency, and picks the
+ * transaction status poll timers from it.
+ *
+ * <p>The time to settle is measured from the collection request until a callback or status
+ * response reports a final state. The next poll is scheduled when the configured percentile of
+ * the transactions still pending after the same time has settled, plus or minus some jitter so
+ * that polls started together don't stay together, and capped at the configured max delay. Until
+ * enough settlements have been observed the timer is doubled as before.</p>
+ */
+@Component
+public class SettlementTimeStore {
+    private final AirtelProps.Poll poll;
+    private final Cache<String, PendingTransaction> pendingTransactions;
+    private final Map<String, SettlementTimes> settlementTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an instance of {@link SettlementTimeStore} with all required params.
+     *
+     * @param airtelProps {@link AirtelProps}
+     */
+    public SettlementTimeStore(AirtelProps airtelProps) {
+        this.poll = airtelProps.getPoll();
+        this.pendingTransactions = Caffeine.newBuilder()
+            .maximumSize(airtelProps.getTransactionState().getMaxSize())
+            .expireAfterWrite(airtelProps.getTransactionState().getTtl())
+            .build();
+    }
+
+    /**
+     * Records that a collection request is being sent to Airtel.
+     *
+     * @param transactionId zeebe transaction ID
+     * @param country       country of the transaction
+     * @param currency      currency of the transaction
+     */
+    public void recordStart(String transactionId, String country, String currency) {
+        pendingTransactions.put(transactionId,
+            new PendingTransaction(key(country, currency), System.nanoTime()));
+    }
+
+    /**
+     * Records that a transaction has reached a final state. Only the first final state reported
+     * for a transaction counts, and transactions started on another replica are ignored.
+     *
+     * @param transactionId zeebe transaction ID
+     */
+    public void recordSettlement(String transactionId) {
+        if (transactionId == null) {
+            return;
+        }
+        PendingTransaction pending = pendingTransactions.asMap().remove(transactionId);
+        if (pending != null) {
+            record(pending.key(), (System.nanoTime() - pending.startedAt()) / 1_000_000);
+        }
+    }
+
+    /**
+     * Returns the timer of the first status poll of a transaction that has just been sent to
+     * Airtel.
+     *
+     * @param country  country of the transaction
+     * @param currency currency of the transaction
+     * @return the timer in the ISO 8601 durations format, or null if not enough settlements have
+     *     been observed to pick one
+     */
+    public String getInitialTimer(String country, String currency) {
+        if (!poll.isAdaptive()) {
+            return null;
+        }
+        long delay = percentileDelay(key(country, currency), 0);
+        return delay < 0 ? null : toTimer(delay);
+    }
+
+    /**
+     * Returns the timer of the next status poll of a pending transaction.
+     *
+     * @param transactionId zeebe transaction ID
+     * @param country       country of the transaction
+     * @param currency      currency of the transaction
+     * @param currentTimer  the current timer in the ISO 8601 durations format
+     * @return next timer value in the ISO 8601 durations format
+     */
+    public String getNextTimer(String transactionId, String country, String currency,
+                               String currentTimer) {
+        if (!poll.isAdaptive()) {
+            return ZeebeUtils.getNextTimer(currentTimer);
+        }
+        PendingTransaction pending = transactionId == null
+            ? null : pendingTransactions.getIfPresent(transactionId);
+        long delay = pending == null ? -1 : percentileDelay(pending.key(),
+            (System.nanoTime() - pending.startedAt()) / 1_000_000);
+        if (delay < 0) {
+            delay = Duration.parse(ZeebeUtils.getNextTimer(currentTimer)).toMillis();
+        }
+        return toTimer(delay);
+    }
+
+    /**
+     * Records the time a transaction took to settle.
+     *
+     * @param key              country and currency of the transaction
+     * @param settlementMillis time to settle in milliseconds
+     */
+    void record(String key, long settlementMillis) {
+        settlementTimes.computeIfAbsent(key, k -> new SettlementTimes(poll.getWindowSize()))
+            .add(settlementMillis);
+    }
+
+    /**
+     * Picks the delay after which the configured percentile of the transactions that were still
+     * pending after the elapsed time had settled.
+     *
+     * @param key           country and currency of the transaction
+     * @param elapsedMillis time since the collection request
+     * @return the delay in milliseconds, or -1 if not enough settlements have been observed
+     */
+    private long percentileDelay(String key, long elapsedMillis) {
+        SettlementTimes times = settlementTimes.get(key);
+        if (times == null) {
+            return -1;
+        }
+        long[] samples = times.snapshot();
+        if (samples.length < poll.getMinSamples()) {
+            return -1;
+        }
+        Arrays.sort(samples);
+        int from = 0;
+        while (from < samples.length && samples[from] <= elapsedMillis) {
+            from++;
+        }
+        if (from == samples.length) {
+            // Taking longer than anything observed so far
+            return -1;
+        }
+        int remaining = samples.length - from;
+        int index = from + Math.max(0, (int) Math.ceil(poll.getPercentile() * remaining) - 1);
+        return samples[Math.min(index, samples.length - 1)] - elapsedMillis;
+    }
+
+    /**
+     * Applies jitter and the min and max delay to the delay, and formats it as a timer.
+     *
+     * @param delayMillis delay in milliseconds
+     * @return the timer in the ISO 8601 durations format
+     */
+    private String toTimer(long delayMillis) {
+        double jitter = poll.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        long jittered = Math.round(delayMillis * (1 + jitter));
+        long bounded = Math.min(Math.max(jittered, poll.getMinDelay().toMillis()),
+            poll.getMaxDelay().toMillis());
+        return String.format("PT%sS", Math.max(1, (bounded + 999) / 1000));
+    }
+
+    private static String key(String country, String currency) {
+        return country + ":" + currency;
+    }
+
+    private record PendingTransaction(String key, long startedAt) { }
+
+    /**
+     * The most recent settlement times of a country and currency.
+     */
+    private static class SettlementTimes {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        SettlementTimes(int windowSize) {
+            this.samples = new long[windowSize];
+        }
+
+        synchronized void add(long settlementMillis) {
+            samples[next] = settlementMillis;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(samples, size);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.mifos.connector.airtel.store;
+
+/**
+ * Final outcome of an Airtel transaction, as reported by a callback or a status response.
+ *
+ * @param failed           whether the transaction failed
+ * @param airtelMoneyId    ID assigned to the transaction by Airtel
+ * @param errorCode        error code returned by Airtel for failed transactions
+ * @param errorDescription error description returned by Airtel for failed transactions
+ * @param errorInformation raw Airtel response for failed transactions
+ * @param callback         the callback that settled the transaction, if any
+ */
+public record TransactionOutcome(
+    boolean failed,
+    String airtelMoneyId,
+    String errorCode,
+    String errorDescription,
+    String errorInformation,
+    String callback
+) { }
@@ -0,0 +1,43 @@
+package org.mifos.connector.airtel.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.springframework.stereotype.Component;
+
+/**
+ * Index of transactions that have reached a final state on Airtel, keyed by the zeebe
+ * transaction ID. It is fed by callbacks and status responses, and lets status polls for settled
+ * transactions complete without calling Airtel.
+ */
+@Component
+public class TransactionStateStore {
+    private final Cache<String, TransactionOutcome> terminalStates;
+
+    /**
+     * Creates an instance of {@link TransactionStateStore} with all required params.
+     *
+     * @param airtelProps {@link AirtelProps}
+     */
+    public TransactionStateStore(AirtelProps airtelProps) {
+        AirtelProps.TransactionState transactionState = airtelProps.getTransactionState();
+        this.terminalStates = Caffeine.newBuilder()
+            .maximumSize(transactionState.getMaxSize())
+            .expireAfterWrite(transactionState.getTtl())
+            .build();
+    }
+
+    public void record(String transactionId, TransactionOutcome outcome) {
+        terminalStates.put(transactionId, outcome);
+    }
+
+    /**
+     * Returns the final outcome of a transaction.
+     *
+     * @param transactionId zeebe transaction ID
+     * @return {@link TransactionOutcome}, or null if the transaction isn't known to be final
+     */
+    public TransactionOutcome get(String transactionId) {
+        return transactionId == null ? null : terminalStates.getIfPresent(transactionId);
+    }
+}
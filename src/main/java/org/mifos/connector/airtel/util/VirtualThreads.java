@@ -0,0 +1,54 @@
+package org.mifos.connector.airtel.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives access to virtual threads when running on Java 21 or newer. The connector is compiled
+ * for Java 17, so the virtual thread executor is looked up at runtime.
+ */
+public class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findExecutorFactory();
+
+    private VirtualThreads() {}
+
+    /**
+     * Checks if the running JVM supports virtual threads.
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return {@link ExecutorService}
+     * @throws IllegalStateException if the running JVM doesn't support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer, running on "
+                + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+
+    private static MethodHandle findExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
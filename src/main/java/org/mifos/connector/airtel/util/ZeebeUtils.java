@@ -1,5 +1,6 @@
 package org.mifos.connector.airtel.util;
 
+import java.time.Duration;
 import org.apache.camel.util.json.JsonObject;
 
 /**
@@ -24,15 +25,14 @@ public class ZeebeUtils {
      * for more info check
      * https://docs.camunda.io/docs/0.26/reference/bpmn-workflows/timer-events/#time-duration
      *
-     * @param initialTimer initial timer in the ISO 8601 durations format, ex: PT45S
+     * @param initialTimer initial timer in the ISO 8601 durations format, ex: PT45S or PT1M30S
      * @return next timer value in the ISO 8601 durations format
      */
     public static String getNextTimer(String initialTimer) {
-        String stringSecondsValue = initialTimer.split("T")[1].split("S")[0];
-        int initialSeconds = Integer.parseInt(stringSecondsValue);
+        long initialSeconds = Math.max(1, Duration.parse(initialTimer).getSeconds());
 
-        int currentPower = (int) (Math.log(initialSeconds) / Math.log(2));
-        int next = (int) Math.pow(2, ++currentPower);
+        int currentPower = 63 - Long.numberOfLeadingZeros(initialSeconds);
+        long next = 1L << (currentPower + 1);
 
         return String.format("PT%sS", next);
     }
@@ -0,0 +1,110 @@
+package org.mifos.connector.airtel.zeebe;
+
+import java.time.Duration;
+import org.mifos.connector.airtel.dto.ZeebeWorkerProps;
+
+/**
+ * Limits the number of jobs of a type handled at once, adjusting the limit in the AIMD way of
+ * Netflix concurrency-limits. The limit grows by one for each job handled within the latency
+ * threshold while at least half of it is in use, and is cut by the backoff ratio for each job
+ * that fails or takes longer than the threshold.
+ *
+ * <p>Job handling time is dominated by the Airtel call, so the limit follows Airtel latency
+ * and error rate.</p>
+ */
+public class JobConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private int limit;
+    private int inFlight;
+
+    /**
+     * Creates an instance of {@link JobConcurrencyLimit} starting at the initial limit.
+     *
+     * @param settings {@link ZeebeWorkerProps.Limit}
+     */
+    public JobConcurrencyLimit(ZeebeWorkerProps.Limit settings) {
+        this.minLimit = Math.max(1, settings.getMin());
+        this.maxLimit = Math.max(minLimit, settings.getMax());
+        this.backoffRatio = settings.getBackoffRatio();
+        this.latencyThresholdNanos = settings.getLatencyThreshold().toNanos();
+        this.limit = Math.max(minLimit, Math.min(settings.getInitial(), maxLimit));
+    }
+
+    /**
+     * Creates a limit that stays at the given number of jobs whatever their latency or outcome.
+     *
+     * @param capacity the number of jobs handled at once
+     * @return {@link JobConcurrencyLimit}
+     */
+    public static JobConcurrencyLimit fixed(int capacity) {
+        ZeebeWorkerProps.Limit settings = new ZeebeWorkerProps.Limit();
+        settings.setEnabled(true);
+        settings.setInitial(capacity);
+        settings.setMin(capacity);
+        settings.setMax(capacity);
+        settings.setBackoffRatio(1);
+        settings.setLatencyThreshold(Duration.ofNanos(Long.MAX_VALUE));
+        return new JobConcurrencyLimit(settings);
+    }
+
+    /**
+     * Admits a job if fewer jobs than the limit are in flight.
+     *
+     * @return true if the job was admitted, in which case it must be released once handled
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Waits until fewer jobs than the limit are in flight.
+     *
+     * @param timeoutMillis max time to wait
+     * @return the jobs that can be admitted, 0 if the wait timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized int awaitCapacity(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inFlight >= limit) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return 0;
+            }
+            wait(remaining);
+        }
+        return limit - inFlight;
+    }
+
+    /**
+     * Releases an admitted job and adjusts the limit from how it went.
+     *
+     * @param latencyNanos time taken to handle the job
+     * @param failed       whether the job failed
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,135 @@
+package org.mifos.connector.airtel.zeebe;
+
+import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.command.ActivateJobsCommandStep1.ActivateJobsCommandStep3;
+import io.camunda.zeebe.client.api.response.ActivatedJob;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Activates jobs of a type only while its {@link JobConcurrencyLimit} has room, asking the
+ * broker for no more jobs than the limit allows. Used in place of a zeebe job worker when the
+ * jobs are handed off to another executor, since a job worker counts a job as done as soon as
+ * its handler returns and would keep activating jobs regardless of the limit.
+ */
+class LimitedJobPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimitedJobPoller.class);
+
+    /**
+     * Cap on the wait after failed activations, the same as the zeebe job worker backoff.
+     */
+    static final Duration MAX_FAILURE_BACKOFF = Duration.ofSeconds(5);
+
+    private final ZeebeClient zeebeClient;
+    private final String jobType;
+    private final List<String> variables;
+    private final Duration timeout;
+    private final Duration pollInterval;
+    private final Duration requestTimeout;
+    private final JobConcurrencyLimit limit;
+    private final Consumer<ActivatedJob> dispatcher;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates an instance of {@link LimitedJobPoller}, which starts polling once started.
+     *
+     * @param zeebeClient    {@link ZeebeClient}
+     * @param jobType        type of the jobs to activate
+     * @param variables      variables fetched when activating jobs
+     * @param timeout        time the jobs are locked for after activation
+     * @param pollInterval   time between polls that returned no jobs
+     * @param requestTimeout long polling timeout of the activation requests, null for the
+     *                       gateway default
+     * @param limit          {@link JobConcurrencyLimit} of the job type
+     * @param dispatcher     hands each activated job to its handler without blocking for long
+     */
+    LimitedJobPoller(ZeebeClient zeebeClient, String jobType, List<String> variables,
+                     Duration timeout, Duration pollInterval, Duration requestTimeout,
+                     JobConcurrencyLimit limit, Consumer<ActivatedJob> dispatcher) {
+        this.zeebeClient = zeebeClient;
+        this.jobType = jobType;
+        this.variables = variables;
+        this.timeout = timeout;
+        this.pollInterval = pollInterval;
+        this.requestTimeout = requestTimeout;
+        this.limit = limit;
+        this.dispatcher = dispatcher;
+        this.thread = new Thread(this::poll, "airtel-job-poller-" + jobType);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void poll() {
+        long failureBackoff = 0;
+        while (running) {
+            long delay;
+            try {
+                int capacity = limit.awaitCapacity(pollInterval.toMillis());
+                if (capacity == 0) {
+                    continue;
+                }
+                ActivateJobsCommandStep3 command = zeebeClient.newActivateJobsCommand()
+                    .jobType(jobType)
+                    .maxJobsToActivate(capacity)
+                    .workerName(jobType)
+                    .timeout(timeout)
+                    .fetchVariables(variables);
+                if (requestTimeout != null) {
+                    command.requestTimeout(requestTimeout);
+                }
+                List<ActivatedJob> jobs = command.send().join().getJobs();
+                failureBackoff = 0;
+                jobs.forEach(dispatcher);
+                delay = jobs.isEmpty() ? pollInterval.toMillis() : 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                failureBackoff = nextFailureBackoff(failureBackoff, pollInterval.toMillis());
+                // Jitter keeps replicas from retrying in step during a gateway outage
+                delay = failureBackoff
+                    + ThreadLocalRandom.current().nextLong(failureBackoff / 10 + 1);
+                logger.warn("Failed to activate '{}' jobs, retrying in {}ms: {}", jobType, delay,
+                    e.getMessage());
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the time to wait after a failed activation. It starts at the poll interval and
+     * doubles with each consecutive failure, up to {@link #MAX_FAILURE_BACKOFF}.
+     *
+     * @param failureBackoff     the previous backoff in milliseconds, 0 after a successful poll
+     * @param pollIntervalMillis the poll interval in milliseconds
+     * @return the backoff in milliseconds
+     */
+    static long nextFailureBackoff(long failureBackoff, long pollIntervalMillis) {
+        long next = Math.max(pollIntervalMillis, failureBackoff * 2);
+        return Math.min(MAX_FAILURE_BACKOFF.toMillis(), next);
+    }
+}
@@ -0,0 +1,314 @@
+package org.mifos.connector.airtel.zeebe;
+
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_REQUEST_BODY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_TRANSACTION_ID;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.CORRELATION_ID;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.CURRENCY;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.DEPLOYED_PROCESS;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_SCHEDULED_POLL;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_TRANSACTION_PENDING;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.SERVER_TRANSACTION_STATUS_RETRY_COUNT;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TIMER;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSACTION_ID;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
+import org.mifos.connector.airtel.camel.processor.CollectionResponseProcessor;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.dto.CollectionRequestDto;
+import org.mifos.connector.airtel.store.TransactionStateStore;
+import org.mifos.connector.airtel.util.ZeebeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls Airtel for the status of pending transactions inside the connector, so that a pending
+ * transaction costs an entry in a delay queue instead of a BPMN timer and a job per poll.
+ *
+ * <p>A get transaction status job registers its transaction and is completed right away with the
+ * backstop timer. Due transactions are sent through the transaction status route by a bounded
+ * number of pollers, and the final outcome is published by the
+ * {@link CollectionResponseProcessor} as usual. A transaction that is still pending is scheduled
+ * again after the next timer, without updating the process variables.</p>
+ *
+ * <p>Scheduled polls are only kept in memory. If the replica stops, the backstop timer fires and
+ * the transaction is registered again by whichever replica activates the job.</p>
+ */
+@Component
+public class StatusPollScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusPollScheduler.class);
+
+    private final CamelContext camelContext;
+    private final ProducerTemplate producerTemplate;
+    private final TransactionStateStore transactionStateStore;
+    private final AirtelProps.StatusPoller statusPoller;
+    private final Duration retryBackoff;
+    private final DelayQueue<ScheduledPoll> queue = new DelayQueue<>();
+    private final Map<String, ScheduledPoll> scheduledPolls = new ConcurrentHashMap<>();
+    private Semaphore permits;
+    private ExecutorService dispatcher;
+    private ExecutorService pollers;
+    private volatile boolean stopped;
+
+    /**
+     * Creates an instance of {@link StatusPollScheduler} with all required params.
+     *
+     * @param camelContext          {@link CamelContext}
+     * @param producerTemplate      {@link ProducerTemplate}
+     * @param transactionStateStore {@link TransactionStateStore}
+     * @param airtelProps           {@link AirtelProps}
+     * @param meterRegistry         {@link MeterRegistry}
+     */
+    public StatusPollScheduler(CamelContext camelContext, ProducerTemplate producerTemplate,
+                               TransactionStateStore transactionStateStore,
+                               AirtelProps airtelProps, MeterRegistry meterRegistry) {
+        this.camelContext = camelContext;
+        this.producerTemplate = producerTemplate;
+        this.transactionStateStore = transactionStateStore;
+        this.statusPoller = airtelProps.getStatusPoller();
+        this.retryBackoff = airtelProps.getResilience().getRetryBackoff();
+        Gauge.builder("airtel.status.poll.scheduled", scheduledPolls, Map::size)
+            .description("Pending transactions polled by the connector instead of zeebe timers")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts the dispatcher and the pollers if the status poller is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!statusPoller.isEnabled()) {
+            return;
+        }
+        permits = new Semaphore(statusPoller.getParallelism());
+        pollers = Executors.newFixedThreadPool(statusPoller.getParallelism(),
+            daemonThreadFactory("airtel-status-poller-"));
+        dispatcher = Executors.newSingleThreadExecutor(
+            daemonThreadFactory("airtel-status-poll-dispatcher-"));
+        dispatcher.execute(this::dispatch);
+        logger.info("Polling transaction status in the connector with {} pollers",
+            statusPoller.getParallelism());
+    }
+
+    /**
+     * Stops polling. Transactions still scheduled are picked up again by the backstop timer.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+            pollers.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return statusPoller.isEnabled();
+    }
+
+    /**
+     * Returns the timer the get transaction status job is completed with once its transaction
+     * has been registered.
+     *
+     * @return the timer in the ISO 8601 durations format
+     */
+    public String getBackstopTimer() {
+        return statusPoller.getBackstopTimer().toString();
+    }
+
+    /**
+     * Registers a pending transaction to be polled right away. A transaction that is already
+     * registered, because the backstop timer fired while it was still being polled, is left as
+     * it is.
+     *
+     * @param transactionId        zeebe transaction ID
+     * @param collectionRequestDto {@link CollectionRequestDto} of the transaction
+     * @param retryCount           number of the next status call
+     * @param timer                the current timer in the ISO 8601 durations format
+     * @param bpmnProcessId        ID of the process the transaction belongs to
+     * @return false if too many transactions are registered, in which case the job has to poll
+     *     Airtel itself
+     */
+    public boolean register(String transactionId, CollectionRequestDto collectionRequestDto,
+                            int retryCount, String timer, String bpmnProcessId) {
+        if (scheduledPolls.containsKey(transactionId)) {
+            return true;
+        }
+        if (scheduledPolls.size() >= statusPoller.getMaxPending()) {
+            return false;
+        }
+        ScheduledPoll poll = new ScheduledPoll(transactionId, collectionRequestDto, bpmnProcessId,
+            retryCount, timer, System.nanoTime());
+        if (scheduledPolls.putIfAbsent(transactionId, poll) == null) {
+            queue.put(poll);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the exchange sent to the transaction status route.
+     *
+     * @param camelContext         {@link CamelContext}
+     * @param transactionId        zeebe transaction ID
+     * @param collectionRequestDto {@link CollectionRequestDto} of the transaction
+     * @param retryCount           number of the status call
+     * @param timer                the current timer in the ISO 8601 durations format
+     * @param bpmnProcessId        ID of the process the transaction belongs to
+     * @return {@link Exchange}
+     */
+    static Exchange createTransactionStatusExchange(CamelContext camelContext,
+                                                    String transactionId,
+                                                    CollectionRequestDto collectionRequestDto,
+                                                    int retryCount, String timer,
+                                                    String bpmnProcessId) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(CORRELATION_ID, transactionId);
+        exchange.setProperty(TRANSACTION_ID, transactionId);
+        exchange.setProperty(COLLECTION_TRANSACTION_ID,
+            collectionRequestDto.getTransaction().getId());
+        exchange.setProperty(COLLECTION_REQUEST_BODY, collectionRequestDto);
+        exchange.setProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT, retryCount);
+        exchange.setProperty(TIMER, timer);
+        exchange.setProperty(DEPLOYED_PROCESS, bpmnProcessId);
+        exchange.setProperty(COUNTRY, collectionRequestDto.getTransaction().getCountry());
+        exchange.setProperty(CURRENCY, collectionRequestDto.getTransaction().getCurrency());
+        return exchange;
+    }
+
+    /**
+     * Hands due polls over to the pollers, waiting for a free poller first so that due polls
+     * stay in the queue rather than piling up in the executor.
+     */
+    private void dispatch() {
+        while (!stopped) {
+            try {
+                permits.acquire();
+                ScheduledPoll poll = queue.take();
+                pollers.execute(() -> {
+                    try {
+                        poll(poll);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the poll scheduled for a transaction.
+     *
+     * @param transactionId zeebe transaction ID
+     * @return {@link ScheduledPoll}, or null if the transaction isn't scheduled
+     */
+    ScheduledPoll getScheduledPoll(String transactionId) {
+        return scheduledPolls.get(transactionId);
+    }
+
+    /**
+     * Calls the transaction status route for a due transaction, and schedules the next poll if
+     * it is still pending. A transaction settled in the meantime, by a callback, is dropped
+     * without calling the route since its outcome has already been published. A poll whose
+     * result can't be handled is dropped too, leaving the transaction to the backstop timer.
+     *
+     * @param poll {@link ScheduledPoll}
+     */
+    void poll(ScheduledPoll poll) {
+        if (transactionStateStore.get(poll.transactionId()) != null) {
+            scheduledPolls.remove(poll.transactionId(), poll);
+            return;
+        }
+        try {
+            Exchange exchange = createTransactionStatusExchange(camelContext,
+                poll.transactionId(), poll.collectionRequestDto(), poll.retryCount(),
+                poll.timer(), poll.bpmnProcessId());
+            exchange.setProperty(IS_SCHEDULED_POLL, true);
+            handleResult(poll, producerTemplate.send("direct:get-transaction-status-base",
+                exchange));
+        } catch (RuntimeException e) {
+            logger.error("Status poll of transaction {} dropped, left to the backstop timer",
+                poll.transactionId(), e);
+            scheduledPolls.remove(poll.transactionId(), poll);
+        }
+    }
+
+    private void handleResult(ScheduledPoll poll, Exchange result) {
+        Exception exception = result.getException();
+        if (exception != null && AirtelApiGuard.isRejectedCall(exception)) {
+            logger.warn("Status poll of transaction {} rejected, retrying in {}: {}",
+                poll.transactionId(), retryBackoff, exception.getMessage());
+            reschedule(poll, poll.retryCount(), poll.timer(), retryBackoff);
+        } else if (exception != null) {
+            // Counts as a status call, so that the retry limit eventually fails the transaction
+            logger.error("Status poll of transaction {} failed", poll.transactionId(), exception);
+            String nextTimer = ZeebeUtils.getNextTimer(poll.timer());
+            reschedule(poll, poll.retryCount() + 1, nextTimer, Duration.parse(nextTimer));
+        } else if (Boolean.TRUE.equals(result.getProperty(IS_TRANSACTION_PENDING, Boolean.class))) {
+            String nextTimer = result.getProperty(TIMER, String.class);
+            reschedule(poll, poll.retryCount() + 1, nextTimer, Duration.parse(nextTimer));
+        } else {
+            scheduledPolls.remove(poll.transactionId(), poll);
+        }
+    }
+
+    private void reschedule(ScheduledPoll poll, int retryCount, String timer, Duration delay) {
+        if (stopped) {
+            scheduledPolls.remove(poll.transactionId(), poll);
+            return;
+        }
+        ScheduledPoll next = new ScheduledPoll(poll.transactionId(), poll.collectionRequestDto(),
+            poll.bpmnProcessId(), retryCount, timer, System.nanoTime() + delay.toNanos());
+        scheduledPolls.put(poll.transactionId(), next);
+        queue.put(next);
+    }
+
+    private static CustomizableThreadFactory daemonThreadFactory(String threadNamePrefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * A status poll due at the given {@link System#nanoTime()}.
+     */
+    record ScheduledPoll(String transactionId, CollectionRequestDto collectionRequestDto,
+                                 String bpmnProcessId, int retryCount, String timer, long dueAt)
+        implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((ScheduledPoll) other).dueAt);
+        }
+    }
+}
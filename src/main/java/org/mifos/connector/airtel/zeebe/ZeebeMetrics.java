@@ -0,0 +1,137 @@
+package org.mifos.connector.airtel.zeebe;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records how long zeebe commands and job handlers take.
+ *
+ * <p>Commands are timed in {@code zeebe.command}, tagged by command and outcome. Job handlers
+ * are timed in {@code zeebe.job.handler}, tagged by job type and outcome, from the moment the
+ * handler starts until its complete command has been acknowledged or it has failed. The fail
+ * command sent for a failed job is timed in {@code zeebe.command} only, and the time jobs wait
+ * between activation and their handler starting is recorded separately in
+ * {@code zeebe.job.queue}, tagged by job type. Job types with an adaptive concurrency limit
+ * export it in {@code zeebe.job.limit}, and the jobs counted against it in
+ * {@code zeebe.job.in.flight}.</p>
+ */
+@Component
+public class ZeebeMetrics {
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+
+    public ZeebeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends a command, waits for its response on the calling thread and times it.
+     *
+     * @param command name of the command, e.g. publish
+     * @param send    sends the command and waits for its response
+     * @param <T>     type of the command response
+     * @return the command response
+     */
+    public <T> T timeBlockingCommand(String command, Supplier<T> send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            T response = send.get();
+            stopCommand(sample, command, null);
+            return response;
+        } catch (RuntimeException e) {
+            stopCommand(sample, command, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a command and times it until its response arrives.
+     *
+     * @param command name of the command, e.g. complete
+     * @param send    sends the command
+     * @param <T>     type of the command response
+     * @return a future holding the command response
+     */
+    public <T> CompletableFuture<T> timeCommand(String command,
+                                                Supplier<? extends CompletionStage<T>> send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return send.get().toCompletableFuture()
+            .whenComplete((response, error) -> stopCommand(sample, command, error));
+    }
+
+    /**
+     * Runs a job handler and times it until the returned future completes.
+     *
+     * @param jobType type of the job
+     * @param handler handles the job
+     * @param <T>     type of the job outcome
+     * @return the future returned by the handler
+     */
+    public <T> CompletableFuture<T> timeJob(String jobType,
+                                            Supplier<CompletableFuture<T>> handler) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<T> outcome;
+        try {
+            outcome = handler.get();
+        } catch (RuntimeException e) {
+            stopJob(sample, jobType, e);
+            throw e;
+        }
+        return outcome.whenComplete((result, error) -> stopJob(sample, jobType, error));
+    }
+
+    /**
+     * Records how long a job waited between its activation and its handler starting.
+     *
+     * @param jobType         type of the job
+     * @param queueTimeMillis time waited in milliseconds
+     */
+    public void recordQueueTime(String jobType, long queueTimeMillis) {
+        Timer.builder("zeebe.job.queue")
+            .description("Time zeebe jobs wait between activation and handling")
+            .tag("type", jobType)
+            .register(meterRegistry)
+            .record(queueTimeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Exports the current value of a job concurrency limit and the jobs counted against it.
+     *
+     * @param jobType type of the limited jobs
+     * @param limit   {@link JobConcurrencyLimit}
+     */
+    public void registerLimit(String jobType, JobConcurrencyLimit limit) {
+        Gauge.builder("zeebe.job.limit", limit, JobConcurrencyLimit::getLimit)
+            .description("Jobs allowed to be handled at once")
+            .tag("type", jobType)
+            .register(meterRegistry);
+        Gauge.builder("zeebe.job.in.flight", limit, JobConcurrencyLimit::getInFlight)
+            .description("Jobs being handled, counted against the concurrency limit")
+            .tag("type", jobType)
+            .register(meterRegistry);
+    }
+
+    private void stopCommand(Timer.Sample sample, String command, Throwable error) {
+        sample.stop(Timer.builder("zeebe.command")
+            .description("Time taken for zeebe commands to be acknowledged")
+            .tag("command", command)
+            .tag("outcome", error == null ? SUCCESS : FAILURE)
+            .register(meterRegistry));
+    }
+
+    private void stopJob(Timer.Sample sample, String jobType, Throwable error) {
+        sample.stop(Timer.builder("zeebe.job.handler")
+            .description("Time taken to handle zeebe jobs")
+            .tag("type", jobType)
+            .tag("outcome", error == null ? SUCCESS : FAILURE)
+            .register(meterRegistry));
+    }
+}
@@ -2,11 +2,11 @@ package org.mifos.connector.airtel.zeebe;
 
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_REQUEST_BODY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_RESPONSE_BODY;
-import static org.mifos.connector.airtel.camel.config.CamelProperties.COLLECTION_TRANSACTION_ID;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.CORRELATION_ID;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.CURRENCY;
 import static org.mifos.connector.airtel.camel.config.CamelProperties.DEPLOYED_PROCESS;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.JOB_DEADLINE;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.CHANNEL_REQUEST;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ERROR_CODE;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ERROR_DESCRIPTION;
@@ -22,15 +22,36 @@ import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TRANSFER_MESSAGE;
 import static org.mifos.connector.airtel.zeebe.ZeebeVariables.ZEEBE_ELEMENT_INSTANCE_KEY;
 
 import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.command.CompleteJobCommandStep1;
+import io.camunda.zeebe.client.api.response.ActivatedJob;
+import io.camunda.zeebe.client.api.worker.JobClient;
+import io.camunda.zeebe.client.api.worker.JobWorkerBuilderStep1.JobWorkerBuilderStep3;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.ProducerTemplate;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
+import org.apache.camel.impl.engine.DefaultProducerTemplate;
 import org.apache.camel.support.DefaultExchange;
-import org.json.JSONObject;
+import org.mifos.connector.airtel.camel.processor.AirtelApiGuard;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineGuard;
+import org.mifos.connector.airtel.dto.AirtelProps;
 import org.mifos.connector.airtel.dto.CollectionRequestDto;
+import org.mifos.connector.airtel.dto.ZeebeWorkerProps;
+import org.mifos.connector.airtel.store.CollectionRequestStore;
+import org.mifos.connector.airtel.store.SettlementTimeStore;
+import org.mifos.connector.airtel.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -43,11 +64,55 @@ import org.springframework.stereotype.Component;
 public class ZeebeWorkers {
 
     private static final Logger logger = LoggerFactory.getLogger(ZeebeWorkers.class);
+
+    /**
+     * Variables fetched when activating init transfer jobs. Anything else in the process scope,
+     * like earlier response bodies, is left on the broker.
+     */
+    private static final List<String> INIT_TRANSFER_VARIABLES =
+        List.of(CHANNEL_REQUEST, TRANSACTION_ID);
+
+    /**
+     * Variables fetched when activating get transaction status jobs.
+     */
+    private static final List<String> GET_TRANSACTION_STATUS_VARIABLES =
+        List.of(CHANNEL_REQUEST, TRANSACTION_ID, SERVER_TRANSACTION_STATUS_RETRY_COUNT, TIMER);
+
     private final ProducerTemplate producerTemplate;
     private final ZeebeClient zeebeClient;
 
     private final CamelContext camelContext;
 
+    private final CollectionRequestStore collectionRequestStore;
+
+    private final AirtelProps airtelProps;
+
+    private final ZeebeMetrics zeebeMetrics;
+
+    private final SettlementTimeStore settlementTimeStore;
+
+    private final StatusPollScheduler statusPollScheduler;
+
+    private final ZeebeWorkerProps zeebeWorkerProps;
+
+    /**
+     * Used to send exchanges when async or virtual thread execution is enabled, backed by its own
+     * executor so that zeebe job worker threads are released as soon as a job has been handed
+     * over. Null when jobs are handled on the zeebe job worker threads.
+     */
+    private ProducerTemplate asyncProducerTemplate;
+
+    /**
+     * Runs each exchange on its own virtual thread, only set when virtual thread execution is
+     * enabled.
+     */
+    private ExecutorService virtualThreadExecutor;
+
+    /**
+     * Activate the jobs of limited job types that are handed off to another executor.
+     */
+    private final List<LimitedJobPoller> limitedJobPollers = new ArrayList<>();
+
     /**
      * Determines if an actual call to Airtel API will be made or not.
      */
@@ -57,6 +122,30 @@ public class ZeebeWorkers {
     @Value("${zeebe.client.evenly-allocated-max-jobs}")
     private int workerMaxJobs;
 
+    /**
+     * Determines if jobs are handled asynchronously, i.e. the camel route and the zeebe complete
+     * command are chained without parking a job worker thread.
+     */
+    @Value("${zeebe.client.async.enabled}")
+    private boolean asyncExecution;
+
+    @Value("${zeebe.client.async.pool-size}")
+    private int asyncPoolSize;
+
+    @Value("${zeebe.client.async.max-queue-size}")
+    private int asyncMaxQueueSize;
+
+    /**
+     * Determines if jobs are handled on virtual threads. Blocking Airtel calls then park a
+     * virtual thread instead of a platform thread, so the number of active jobs is no longer
+     * bound by the number of job worker threads. Requires Java 21 or newer.
+     */
+    @Value("${zeebe.client.virtual-threads.enabled}")
+    private boolean virtualThreadExecution;
+
+    @Value("${zeebe.client.virtual-threads.max-jobs-active}")
+    private int virtualThreadMaxJobs;
+
     @Value("#{${countryCodes}}")
     private Map<String, String> countryCodes;
 
@@ -66,15 +155,31 @@ public class ZeebeWorkers {
     /**
      * Creates an instance of {@link ZeebeWorkers} with all required params.
      *
-     * @param producerTemplate {@link ProducerTemplate}
-     * @param zeebeClient      {@link ZeebeClient}
-     * @param camelContext     {@link CamelContext}
+     * @param producerTemplate       {@link ProducerTemplate}
+     * @param zeebeClient            {@link ZeebeClient}
+     * @param camelContext           {@link CamelContext}
+     * @param collectionRequestStore {@link CollectionRequestStore}
+     * @param airtelProps            {@link AirtelProps}
+     * @param zeebeMetrics           {@link ZeebeMetrics}
+     * @param settlementTimeStore    {@link SettlementTimeStore}
+     * @param statusPollScheduler    {@link StatusPollScheduler}
+     * @param zeebeWorkerProps       {@link ZeebeWorkerProps}
      */
     public ZeebeWorkers(ProducerTemplate producerTemplate, ZeebeClient zeebeClient,
-                        CamelContext camelContext) {
+                        CamelContext camelContext, CollectionRequestStore collectionRequestStore,
+                        AirtelProps airtelProps, ZeebeMetrics zeebeMetrics,
+                        SettlementTimeStore settlementTimeStore,
+                        StatusPollScheduler statusPollScheduler,
+                        ZeebeWorkerProps zeebeWorkerProps) {
         this.producerTemplate = producerTemplate;
         this.zeebeClient = zeebeClient;
         this.camelContext = camelContext;
+        this.collectionRequestStore = collectionRequestStore;
+        this.airtelProps = airtelProps;
+        this.zeebeMetrics = zeebeMetrics;
+        this.settlementTimeStore = settlementTimeStore;
+        this.statusPollScheduler = statusPollScheduler;
+        this.zeebeWorkerProps = zeebeWorkerProps;
     }
 
     /**
@@ -82,117 +187,588 @@ public class ZeebeWorkers {
      */
     @PostConstruct
     public void setupWorkers() {
-        zeebeClient.newWorker()
-            .jobType(INIT_TRANSFER_WORKER_NAME)
-            .handler((client, job) -> {
-                logger.info("Job '{}' started from process '{}' with key {}", job.getType(),
-                    job.getBpmnProcessId(), job.getKey());
-
-                Map<String, Object> variables = job.getVariablesAsMap();
-                if (skipAirtelMoney) {
-                    logger.info("Skipping Airtel Money");
-                    variables.put(TRANSACTION_FAILED, false);
-                    variables.put(TRANSFER_CREATE_FAILED, false);
-                } else {
-                    JSONObject channelRequest =
-                        new JSONObject((String) variables.get(CHANNEL_REQUEST));
-                    String transactionId = (String) variables.get(TRANSACTION_ID);
-
-                    CollectionRequestDto collectionRequestDto = CollectionRequestDto
-                        .fromChannelRequest(channelRequest, transactionId, countryCodes,
-                            transactionIdPrefix);
-                    logger.info(collectionRequestDto.toString());
-                    Exchange exchange = new DefaultExchange(camelContext);
-                    exchange.setProperty(COLLECTION_REQUEST_BODY, collectionRequestDto);
-                    exchange.setProperty(CORRELATION_ID, transactionId);
-                    exchange.setProperty(DEPLOYED_PROCESS, job.getBpmnProcessId());
-                    exchange.setProperty(COUNTRY, collectionRequestDto.getTransaction()
-                        .getCountry());
-                    exchange.setProperty(CURRENCY, collectionRequestDto.getTransaction()
-                        .getCurrency());
-
-                    variables.put(COLLECTION_REQUEST_BODY, collectionRequestDto.toString());
-
-                    producerTemplate.send("direct:collection-request-base", exchange);
-                    variables.put(COLLECTION_RESPONSE_BODY,
-                        exchange.getProperty(COLLECTION_RESPONSE_BODY));
-
-                    boolean isTransactionFailed = exchange
-                        .getProperty(TRANSACTION_FAILED, boolean.class);
-                    if (isTransactionFailed) {
-                        variables.put(TRANSACTION_FAILED, true);
-                        variables.put(TRANSFER_CREATE_FAILED, true);
-                        String errorBody = exchange.getProperty(ERROR_INFORMATION, String.class);
-                        variables.put(ERROR_INFORMATION, errorBody);
-                        variables.put(ERROR_CODE, exchange.getProperty(ERROR_CODE, String.class));
-                        variables.put(ERROR_DESCRIPTION,
-                            exchange.getProperty(ERROR_DESCRIPTION, String.class));
-                    } else {
-                        variables.put(TRANSACTION_FAILED, false);
-                        variables.put(TRANSFER_CREATE_FAILED, false);
-                    }
+        int maxJobsActive = workerMaxJobs;
+        String sharedExecution = "the job worker threads";
+        if (virtualThreadExecution) {
+            virtualThreadExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            asyncProducerTemplate = createProducerTemplate(virtualThreadExecutor);
+            maxJobsActive = virtualThreadMaxJobs;
+            sharedExecution = "virtual threads";
+        } else if (asyncExecution) {
+            asyncProducerTemplate = createProducerTemplate(createAsyncExecutor());
+            sharedExecution = "the async executor";
+        }
+
+        openWorker(INIT_TRANSFER_WORKER_NAME, INIT_TRANSFER_VARIABLES, maxJobsActive,
+            sharedExecution, this::initTransfer);
+        openWorker(GET_TRANSACTION_STATUS_WORKER_NAME, GET_TRANSACTION_STATUS_VARIABLES,
+            maxJobsActive, sharedExecution, this::getTransactionStatus);
+    }
+
+    /**
+     * Stops activating jobs of limited job types and shuts down the virtual thread executor.
+     */
+    @PreDestroy
+    public void shutdown() {
+        limitedJobPollers.forEach(LimitedJobPoller::stop);
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a worker for the given job type with the settings of its lane. A lane with threads
+     * of its own handles its jobs on a dedicated pool, so that a backlog of one job type can't
+     * hold up the job worker threads shared with the other job types. Async and virtual thread
+     * execution already release the job worker threads right away, so lanes don't get a pool
+     * of their own when either is enabled.
+     *
+     * <p>A zeebe job worker counts a job as done once its handler returns, so when the jobs of
+     * a limited lane are handed off to another executor they are activated by a
+     * {@link LimitedJobPoller} instead, which only asks for as many jobs as the limit has room
+     * for. Limited lanes handled on the job worker threads keep the job worker, with their
+     * active jobs capped at the max of the limit. With async or virtual thread execution every
+     * job type is handed off, so job types without a limit of their own get a fixed one of their
+     * max active jobs.
+     *
+     * @param jobType              type of the jobs handled by the worker
+     * @param variables            variables fetched when activating jobs
+     * @param defaultMaxJobsActive max active jobs when the lane has neither its own max nor its
+     *                             own pool
+     * @param sharedExecution      where jobs run when the lane has no pool, for logging
+     * @param handler              handles the jobs
+     */
+    private void openWorker(String jobType, List<String> variables, int defaultMaxJobsActive,
+                            String sharedExecution, JobHandler handler) {
+        ZeebeWorkerProps.Worker settings = zeebeWorkerProps.getWorker(jobType);
+        Duration timeout = settings.getTimeout() != null ? settings.getTimeout()
+            : zeebeClient.getConfiguration().getDefaultJobTimeout();
+        JobConcurrencyLimit limit = null;
+        if (settings.getLimit() != null && settings.getLimit().isEnabled()) {
+            limit = new JobConcurrencyLimit(settings.getLimit());
+            zeebeMetrics.registerLimit(jobType, limit);
+        } else if (asyncProducerTemplate != null) {
+            limit = JobConcurrencyLimit.fixed(settings.getMaxJobsActive() != null
+                ? settings.getMaxJobsActive() : defaultMaxJobsActive);
+        }
+        boolean ownPool = settings.getThreads() > 0 && asyncProducerTemplate == null;
+        if (settings.getThreads() > 0 && !ownPool) {
+            logger.info("Ignoring the {} threads of worker '{}', its jobs run on {}",
+                settings.getThreads(), jobType, sharedExecution);
+        }
+        Duration rejectionBackoff = settings.getRejectionBackoff() != null
+            ? settings.getRejectionBackoff() : Duration.ZERO;
+        Lane lane = new Lane(jobType, timeout, rejectionBackoff,
+            ownPool ? createLaneExecutor(jobType, settings) : null, limit);
+        String execution = lane.executor() != null
+            ? "its own pool of " + settings.getThreads() + " threads" : sharedExecution;
+        boolean handedOff = lane.executor() != null || asyncProducerTemplate != null;
+        if (limit != null && handedOff) {
+            Duration pollInterval = settings.getPollInterval() != null ? settings.getPollInterval()
+                : zeebeClient.getConfiguration().getDefaultJobPollInterval();
+            LimitedJobPoller poller = new LimitedJobPoller(zeebeClient, jobType, variables,
+                timeout, pollInterval, settings.getRequestTimeout(), limit,
+                job -> dispatch(lane, zeebeClient, job, handler));
+            limitedJobPollers.add(poller);
+            poller.start();
+            logger.info("Polling '{}' jobs up to a limit of {} on {}", jobType,
+                limit.getLimit(), execution);
+            return;
+        }
+
+        int maxJobsActive = defaultMaxJobsActive;
+        if (settings.getMaxJobsActive() != null) {
+            maxJobsActive = settings.getMaxJobsActive();
+        } else if (lane.executor() != null) {
+            maxJobsActive = settings.getThreads() + settings.getQueueSize();
+        }
+        if (limit != null) {
+            maxJobsActive = Math.min(maxJobsActive, settings.getLimit().getMax());
+        }
+
+        JobWorkerBuilderStep3 builder = zeebeClient.newWorker()
+            .jobType(jobType)
+            .handler((client, job) -> dispatch(lane, client, job, handler))
+            .name(jobType)
+            .timeout(timeout)
+            .fetchVariables(variables)
+            .maxJobsActive(maxJobsActive);
+        if (settings.getPollInterval() != null) {
+            builder.pollInterval(settings.getPollInterval());
+        }
+        if (settings.getRequestTimeout() != null) {
+            builder.requestTimeout(settings.getRequestTimeout());
+        }
+        builder.open();
+        logger.info("Opened worker '{}' with up to {} active jobs on {}", jobType, maxJobsActive,
+            execution);
+    }
+
+    /**
+     * Hands the job to its lane executor, or handles it on the calling job worker thread when
+     * the lane has no executor of its own. Jobs past the lane concurrency limit, or that the
+     * lane executor can't take, are handed back with their retries kept.
+     *
+     * @param lane    {@link Lane} of the job type
+     * @param client  {@link JobClient}
+     * @param job     {@link ActivatedJob}
+     * @param handler handles the job
+     */
+    private void dispatch(Lane lane, JobClient client, ActivatedJob job, JobHandler handler) {
+        if (lane.limit() != null && !lane.limit().tryAcquire()) {
+            handBack(lane, client, job, "Concurrency limit of " + lane.limit().getLimit()
+                + " reached for " + lane.jobType());
+            return;
+        }
+        long admittedAt = System.nanoTime();
+        if (lane.executor() == null) {
+            handle(lane, client, job, run(lane, client, job, handler, admittedAt));
+            return;
+        }
+        try {
+            lane.executor().execute(() -> {
+                try {
+                    run(lane, client, job, handler, admittedAt).join();
+                } catch (RuntimeException e) {
+                    fail(client, job, e);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            lane.release(admittedAt, e);
+            handBack(lane, client, job, "Pool of " + lane.jobType() + " is full");
+        }
+    }
+
+    /**
+     * Runs the job handler, timing it and releasing the job from the lane concurrency limit once
+     * it has been handled.
+     *
+     * @param lane       {@link Lane} of the job type
+     * @param client     {@link JobClient}
+     * @param job        {@link ActivatedJob}
+     * @param handler    handles the job
+     * @param admittedAt when the job was admitted, from {@link System#nanoTime()}
+     * @return the future returned by the handler
+     */
+    private CompletableFuture<Void> run(Lane lane, JobClient client, ActivatedJob job,
+                                        JobHandler handler, long admittedAt) {
+        zeebeMetrics.recordQueueTime(lane.jobType(), lane.queueTimeMillis(job));
+        CompletableFuture<Void> outcome;
+        try {
+            outcome = zeebeMetrics.timeJob(job.getType(), () -> handler.handle(client, job, lane));
+        } catch (RuntimeException e) {
+            lane.release(admittedAt, e);
+            throw e;
+        }
+        return outcome.whenComplete((result, error) -> lane.release(admittedAt, error));
+    }
+
+    /**
+     * Initiates a collection request on Airtel and completes the job with the outcome.
+     *
+     * @param client {@link JobClient}
+     * @param job    {@link ActivatedJob}
+     * @param lane   {@link Lane} of the job type
+     * @return a future that completes once the job complete command has been acknowledged
+     */
+    private CompletableFuture<Void> initTransfer(JobClient client, ActivatedJob job, Lane lane) {
+        logger.info("Job '{}' started from process '{}' with key {}", job.getType(),
+            job.getBpmnProcessId(), job.getKey());
+
+        Map<String, Object> variables = job.getVariablesAsMap();
+        Map<String, Object> result = new HashMap<>();
+        if (skipAirtelMoney) {
+            logger.info("Skipping Airtel Money");
+            result.put(TRANSACTION_FAILED, false);
+            result.put(TRANSFER_CREATE_FAILED, false);
+            return complete(client, job, result);
+        }
+
+        String transactionId = (String) variables.get(TRANSACTION_ID);
 
-                client.newCompleteCommand(job.getKey())
-                    .variables(variables)
-                    .send()
-                    .join();
+        CollectionRequestDto collectionRequestDto = CollectionRequestDto.fromChannelRequest(
+            (String) variables.get(CHANNEL_REQUEST), transactionId, countryCodes,
+            transactionIdPrefix);
+        logger.info(collectionRequestDto.toString());
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(COLLECTION_REQUEST_BODY, collectionRequestDto);
+        exchange.setProperty(CORRELATION_ID, transactionId);
+        exchange.setProperty(DEPLOYED_PROCESS, job.getBpmnProcessId());
+        exchange.setProperty(JOB_DEADLINE, job.getDeadline());
+        exchange.setProperty(COUNTRY, collectionRequestDto.getTransaction().getCountry());
+        exchange.setProperty(CURRENCY, collectionRequestDto.getTransaction().getCurrency());
+
+        if (airtelProps.getVariables().isCapturePayloads()) {
+            result.put(COLLECTION_REQUEST_BODY, collectionRequestDto.toString());
+        }
+
+        String country = collectionRequestDto.getTransaction().getCountry();
+        String currency = collectionRequestDto.getTransaction().getCurrency();
+        return collectionRequestStore
+            .submit(transactionId, () -> {
+                settlementTimeStore.recordStart(transactionId, country, currency);
+                return send(lane, "direct:collection-request-base", exchange)
+                    .thenApply(this::getCollectionOutcome);
             })
-            .name(INIT_TRANSFER_WORKER_NAME)
-            .maxJobsActive(workerMaxJobs)
-            .open();
-
-        zeebeClient.newWorker()
-            .jobType(GET_TRANSACTION_STATUS_WORKER_NAME)
-            .handler((client, job) -> {
-                logger.info("Job '{}' started from process '{}' with key {}", job.getType(),
-                    job.getBpmnProcessId(), job.getKey());
-
-                Map<String, Object> variables = job.getVariablesAsMap();
-                Integer retryCount = 1 + (Integer) variables
-                    .getOrDefault(SERVER_TRANSACTION_STATUS_RETRY_COUNT, 0);
-                variables.put(SERVER_TRANSACTION_STATUS_RETRY_COUNT, retryCount);
-                String transactionId = (String) variables.get(TRANSACTION_ID);
-                if (skipAirtelMoney) {
-                    logger.info("Skipping Airtel Money...");
-                    variables.put(TRANSACTION_FAILED, false);
-                    variables.put(TRANSFER_CREATE_FAILED, false);
-                    zeebeClient.newPublishMessageCommand()
-                        .messageName(TRANSFER_MESSAGE)
-                        .correlationKey(transactionId)
-                        .timeToLive(Duration.ofMillis(300))
-                        .variables(variables)
-                        .send()
-                        .join();
-                } else {
-                    logger.info("Trying count: {}", retryCount);
-                    JSONObject channelRequest =
-                        new JSONObject((String) variables.get(CHANNEL_REQUEST));
-                    CollectionRequestDto collectionRequestDto = CollectionRequestDto
-                        .fromChannelRequest(channelRequest, transactionId, countryCodes,
-                            transactionIdPrefix);
-                    Exchange exchange = new DefaultExchange(camelContext);
-                    exchange.setProperty(CORRELATION_ID, transactionId);
-                    exchange.setProperty(TRANSACTION_ID, transactionId);
-                    exchange.setProperty(COLLECTION_TRANSACTION_ID,
-                        collectionRequestDto.getTransaction().getId());
-                    exchange.setProperty(COLLECTION_REQUEST_BODY, collectionRequestDto);
-                    exchange.setProperty(SERVER_TRANSACTION_STATUS_RETRY_COUNT, retryCount);
-                    exchange.setProperty(ZEEBE_ELEMENT_INSTANCE_KEY, job.getElementInstanceKey());
-                    exchange.setProperty(TIMER, variables.get(TIMER));
-                    exchange.setProperty(DEPLOYED_PROCESS, job.getBpmnProcessId());
-                    exchange.setProperty(COUNTRY, collectionRequestDto.getTransaction()
-                        .getCountry());
-                    exchange.setProperty(CURRENCY, collectionRequestDto.getTransaction()
-                        .getCurrency());
-                    producerTemplate.send("direct:get-transaction-status-base", exchange);
+            .exceptionally(throwable -> getUnknownCollectionOutcome(transactionId, throwable))
+            .thenCompose(outcome -> {
+                result.putAll(outcome);
+                // Schedules the first status poll from the observed settlement times, if known
+                String initialTimer = settlementTimeStore.getInitialTimer(country, currency);
+                if (initialTimer != null && Boolean.FALSE.equals(outcome.get(TRANSACTION_FAILED))) {
+                    result.put(TIMER, initialTimer);
                 }
-                client.newCompleteCommand(job.getKey())
-                    .send()
-                    .join();
-            })
-            .name(GET_TRANSACTION_STATUS_WORKER_NAME)
-            .maxJobsActive(workerMaxJobs)
-            .open();
+                return complete(client, job, result);
+            });
+    }
+
+    /**
+     * Treats a collection request that may have reached Airtel as initiated, so that the
+     * process goes on to wait for its callback and the status polls find out how it went. Any
+     * other failure is rethrown.
+     *
+     * @param transactionId zeebe transaction ID
+     * @param throwable     the failure of the collection request
+     * @return key/value pair of zeebe variables
+     */
+    private Map<String, Object> getUnknownCollectionOutcome(String transactionId,
+                                                            Throwable throwable) {
+        if (!CollectionRequestStore.isOutcomeUnknown(throwable)) {
+            throw throwable instanceof CompletionException completionException
+                ? completionException : new CompletionException(throwable);
+        }
+        logger.warn("Collection request for transaction {} may have reached Airtel, leaving its "
+            + "outcome to the status polls: {}", transactionId, throwable.getMessage());
+        Map<String, Object> outcome = new HashMap<>();
+        outcome.put(TRANSACTION_FAILED, false);
+        outcome.put(TRANSFER_CREATE_FAILED, false);
+        return outcome;
+    }
+
+    /**
+     * Reads the zeebe variables resulting from a collection request.
+     *
+     * @param exchange the exchange processed by the collection request route
+     * @return key/value pair of zeebe variables
+     */
+    private Map<String, Object> getCollectionOutcome(Exchange exchange) {
+        Map<String, Object> outcome = new HashMap<>();
+        boolean capturePayloads = airtelProps.getVariables().isCapturePayloads();
+        if (capturePayloads) {
+            outcome.put(COLLECTION_RESPONSE_BODY,
+                exchange.getProperty(COLLECTION_RESPONSE_BODY, String.class));
+        }
+
+        boolean isTransactionFailed = exchange.getProperty(TRANSACTION_FAILED, boolean.class);
+        if (isTransactionFailed) {
+            outcome.put(TRANSACTION_FAILED, true);
+            outcome.put(TRANSFER_CREATE_FAILED, true);
+            if (capturePayloads) {
+                outcome.put(ERROR_INFORMATION,
+                    exchange.getProperty(ERROR_INFORMATION, String.class));
+            }
+            outcome.put(ERROR_CODE, exchange.getProperty(ERROR_CODE, String.class));
+            outcome.put(ERROR_DESCRIPTION, exchange.getProperty(ERROR_DESCRIPTION, String.class));
+        } else {
+            outcome.put(TRANSACTION_FAILED, false);
+            outcome.put(TRANSFER_CREATE_FAILED, false);
+        }
+        return outcome;
+    }
+
+    /**
+     * Checks the status of a transaction on Airtel and completes the job.
+     *
+     * @param client {@link JobClient}
+     * @param job    {@link ActivatedJob}
+     * @param lane   {@link Lane} of the job type
+     * @return a future that completes once the job complete command has been acknowledged
+     */
+    private CompletableFuture<Void> getTransactionStatus(JobClient client, ActivatedJob job,
+                                                         Lane lane) {
+        logger.info("Job '{}' started from process '{}' with key {}", job.getType(),
+            job.getBpmnProcessId(), job.getKey());
+
+        Map<String, Object> variables = job.getVariablesAsMap();
+        Integer retryCount = 1 + (Integer) variables
+            .getOrDefault(SERVER_TRANSACTION_STATUS_RETRY_COUNT, 0);
+        String transactionId = (String) variables.get(TRANSACTION_ID);
+        if (skipAirtelMoney) {
+            logger.info("Skipping Airtel Money...");
+            Map<String, Object> result = new HashMap<>();
+            result.put(SERVER_TRANSACTION_STATUS_RETRY_COUNT, retryCount);
+            result.put(TRANSACTION_FAILED, false);
+            result.put(TRANSFER_CREATE_FAILED, false);
+            return zeebeMetrics.timeCommand("publish", () -> zeebeClient.newPublishMessageCommand()
+                    .messageName(TRANSFER_MESSAGE)
+                    .correlationKey(transactionId)
+                    .timeToLive(Duration.ofMillis(300))
+                    .variables(result)
+                    .send())
+                .thenCompose(response -> complete(client, job, null));
+        }
+
+        logger.info("Trying count: {}", retryCount);
+        CollectionRequestDto collectionRequestDto = CollectionRequestDto.fromChannelRequest(
+            (String) variables.get(CHANNEL_REQUEST), transactionId, countryCodes,
+            transactionIdPrefix);
+        String timer = (String) variables.get(TIMER);
+        if (statusPollScheduler.isEnabled() && statusPollScheduler.register(transactionId,
+            collectionRequestDto, retryCount, timer, job.getBpmnProcessId())) {
+            logger.info("Transaction {} handed over to the status poll scheduler", transactionId);
+            return complete(client, job, Map.of(TIMER, statusPollScheduler.getBackstopTimer()));
+        }
+        Exchange exchange = StatusPollScheduler.createTransactionStatusExchange(camelContext,
+            transactionId, collectionRequestDto, retryCount, timer, job.getBpmnProcessId());
+        exchange.setProperty(ZEEBE_ELEMENT_INSTANCE_KEY, job.getElementInstanceKey());
+        exchange.setProperty(JOB_DEADLINE, job.getDeadline());
+
+        return send(lane, "direct:get-transaction-status-base", exchange)
+            .thenCompose(result -> complete(client, job, null));
+    }
+
+    /**
+     * Sends the exchange to the given route. In async and virtual thread mode the exchange is
+     * processed on the async producer executor, otherwise it is processed on the calling thread.
+     * Lanes with an executor of their own always process it on the calling lane thread.
+     *
+     * @param lane        {@link Lane} of the job type
+     * @param endpointUri the route to send the exchange to
+     * @param exchange    {@link Exchange}
+     * @return a future holding the processed exchange, or failing with the exchange exception
+     */
+    private CompletableFuture<Exchange> send(Lane lane, String endpointUri, Exchange exchange) {
+        CompletableFuture<Exchange> future;
+        if (asyncProducerTemplate != null && lane.executor() == null) {
+            try {
+                future = asyncProducerTemplate.asyncSend(endpointUri, exchange);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+        } else {
+            future = CompletableFuture.completedFuture(
+                producerTemplate.send(endpointUri, exchange));
+        }
+        return future.thenApply(result -> {
+            if (result.getException() != null) {
+                throw new CompletionException(result.getException());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Sends the job complete command without blocking the calling thread.
+     *
+     * @param client    {@link JobClient}
+     * @param job       {@link ActivatedJob}
+     * @param variables variables set by the job, can be null
+     * @return a future that completes once the command has been acknowledged
+     */
+    private CompletableFuture<Void> complete(JobClient client, ActivatedJob job,
+                                             Map<String, Object> variables) {
+        CompleteJobCommandStep1 command = client.newCompleteCommand(job.getKey());
+        if (variables != null) {
+            command.variables(variables);
+        }
+        return zeebeMetrics.timeCommand("complete", command::send)
+            .thenApply(response -> null);
+    }
+
+    /**
+     * Waits for the job outcome in sync mode, or attaches a failure handler otherwise. A
+     * failed job is handed back to the broker with its retries decremented, which is what the
+     * zeebe client does for exceptions thrown from a synchronous handler. A job whose Airtel
+     * call was rejected by a circuit breaker or bulkhead keeps its retries and is retried after
+     * the configured backoff. A job whose Airtel call was
+     * skipped for lack of time before its deadline keeps its retries and is retried right away.
+     * A job the async executor couldn't take is handed back after the lane rejection backoff.
+     *
+     * @param lane    {@link Lane} of the job type
+     * @param client  {@link JobClient}
+     * @param job     {@link ActivatedJob}
+     * @param outcome the future returned by the job handler
+     */
+    private void handle(Lane lane, JobClient client, ActivatedJob job,
+                        CompletableFuture<Void> outcome) {
+        if (asyncProducerTemplate == null) {
+            try {
+                outcome.join();
+            } catch (CompletionException e) {
+                if (!AirtelApiGuard.isRejectedCall(e) && !JobDeadlineGuard.isDeadlineExceeded(e)) {
+                    throw e;
+                }
+                fail(client, job, e);
+            }
+            return;
+        }
+        outcome.exceptionally(throwable -> {
+            if (isRejectedExecution(throwable)) {
+                handBack(lane, client, job, "Async executor is full");
+            } else {
+                fail(client, job, throwable);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sends the job fail command for the given failure.
+     *
+     * @param client    {@link JobClient}
+     * @param job       {@link ActivatedJob}
+     * @param throwable the failure, possibly wrapped in a {@link CompletionException}
+     */
+    private void fail(JobClient client, ActivatedJob job, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException
+            && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (JobDeadlineGuard.isDeadlineExceeded(cause)) {
+            logger.warn("Job '{}' with key {} handed back before its deadline: {}", job.getType(),
+                job.getKey(), cause.getMessage());
+            zeebeMetrics.timeCommand("fail", () -> client.newFailCommand(job.getKey())
+                .retries(job.getRetries())
+                .errorMessage(String.valueOf(cause.getMessage()))
+                .send());
+            return;
+        }
+        if (AirtelApiGuard.isRejectedCall(cause)) {
+            Duration retryBackoff = airtelProps.getResilience().getRetryBackoff();
+            logger.warn("Job '{}' with key {} rejected, retrying in {}: {}", job.getType(),
+                job.getKey(), retryBackoff, cause.getMessage());
+            zeebeMetrics.timeCommand("fail", () -> client.newFailCommand(job.getKey())
+                .retries(job.getRetries())
+                .retryBackoff(retryBackoff)
+                .errorMessage(String.valueOf(cause.getMessage()))
+                .send());
+            return;
+        }
+        logger.error("Job '{}' with key {} failed", job.getType(), job.getKey(), cause);
+        zeebeMetrics.timeCommand("fail", () -> client.newFailCommand(job.getKey())
+            .retries(job.getRetries() - 1)
+            .errorMessage(String.valueOf(cause.getMessage()))
+            .send());
+    }
+
+    private static boolean isRejectedExecution(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands a job the lane couldn't take back to the broker with its retries kept. The job is
+     * available again after the rejection backoff of the lane, which is kept short since the
+     * lane is expected to have room again soon.
+     *
+     * @param lane    {@link Lane} of the job type
+     * @param client  {@link JobClient}
+     * @param job     {@link ActivatedJob}
+     * @param message why the job was handed back
+     */
+    private void handBack(Lane lane, JobClient client, ActivatedJob job, String message) {
+        logger.debug("Job '{}' with key {} handed back, retrying in {}: {}", job.getType(),
+            job.getKey(), lane.rejectionBackoff(), message);
+        zeebeMetrics.timeCommand("fail", () -> client.newFailCommand(job.getKey())
+            .retries(job.getRetries())
+            .retryBackoff(lane.rejectionBackoff())
+            .errorMessage(message)
+            .send());
+    }
+
+    /**
+     * Creates a bounded camel thread pool. When the pool queue is full the exchange is rejected
+     * and its job handed back, rather than processed on the caller thread, which may be a zeebe
+     * job worker thread. The jobs in flight are bounded by their limits, so the queue only
+     * overflows when it is smaller than the limits of all job types together.
+     *
+     * @return {@link ExecutorService}
+     */
+    private ExecutorService createAsyncExecutor() {
+        return camelContext.getExecutorServiceManager()
+            .newThreadPool(this, "AirtelJobExecutor",
+                new ThreadPoolProfileBuilder("airtel-job-executor")
+                    .poolSize(asyncPoolSize)
+                    .maxPoolSize(asyncPoolSize)
+                    .maxQueueSize(asyncMaxQueueSize)
+                    .rejectedPolicy(ThreadPoolRejectedPolicy.Abort)
+                    .build());
+    }
+
+    /**
+     * Creates the bounded camel thread pool of a lane. Jobs are rejected rather than run on the
+     * caller thread when the pool queue is full, since the caller is a job worker thread shared
+     * with the other lanes.
+     *
+     * @param jobType  type of the jobs handled on the pool
+     * @param settings {@link ZeebeWorkerProps.Worker} of the job type
+     * @return {@link ExecutorService}
+     */
+    private ExecutorService createLaneExecutor(String jobType,
+                                               ZeebeWorkerProps.Worker settings) {
+        return camelContext.getExecutorServiceManager()
+            .newThreadPool(this, "AirtelJobLane-" + jobType,
+                new ThreadPoolProfileBuilder("airtel-job-lane-" + jobType)
+                    .poolSize(settings.getThreads())
+                    .maxPoolSize(settings.getThreads())
+                    .maxQueueSize(settings.getQueueSize())
+                    .rejectedPolicy(ThreadPoolRejectedPolicy.Abort)
+                    .build());
+    }
+
+    /**
+     * Creates a producer template which processes exchanges on the given executor.
+     *
+     * @param executorService the executor exchanges are processed on
+     * @return {@link ProducerTemplate}
+     */
+    private ProducerTemplate createProducerTemplate(ExecutorService executorService) {
+        DefaultProducerTemplate template = new DefaultProducerTemplate(camelContext,
+            executorService);
+        template.start();
+        return template;
+    }
+
+    /**
+     * Handles a job and returns a future that completes once the job has been completed.
+     */
+    @FunctionalInterface
+    private interface JobHandler {
+        CompletableFuture<Void> handle(JobClient client, ActivatedJob job, Lane lane);
+    }
+
+    /**
+     * The worker settings a job is handled with.
+     *
+     * @param jobType          type of the jobs handled in the lane
+     * @param timeout          time the jobs are locked for after activation
+     * @param rejectionBackoff time before a job the lane couldn't take is available again
+     * @param executor         dedicated executor of the lane, null when jobs run on the job
+     *                         worker threads
+     * @param limit            adaptive limit on the jobs handled at once, null when jobs aren't
+     *                         limited
+     */
+    private record Lane(String jobType, Duration timeout, Duration rejectionBackoff,
+                        ExecutorService executor, JobConcurrencyLimit limit) {
+
+        /**
+         * Releases an admitted job from the concurrency limit, if any.
+         */
+        void release(long admittedAt, Throwable error) {
+            if (limit != null) {
+                limit.release(System.nanoTime() - admittedAt, error != null);
+            }
+        }
+
+        /**
+         * Returns the time since the job was activated, derived from its deadline. Relies on the
+         * broker and connector clocks being in sync.
+         */
+        long queueTimeMillis(ActivatedJob job) {
+            long activatedAt = job.getDeadline() - timeout.toMillis();
+            return Math.max(0, System.currentTimeMillis() - activatedAt);
+        }
     }
 }
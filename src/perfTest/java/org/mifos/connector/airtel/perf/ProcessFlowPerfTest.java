@@ -0,0 +1,181 @@
+package org.mifos.connector.airtel.perf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.process.test.api.ZeebeTestEngine;
+import io.camunda.zeebe.process.test.engine.EngineFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.AirtelMoneyConnectorApplication;
+import org.mifos.connector.airtel.simulator.AirtelSimulator;
+import org.mifos.connector.airtel.simulator.SimulatorConfig;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Drives process instances of the Airtel BPMN flow through the connector at a fixed rate, and
+ * fails when throughput or end-to-end latency fall past the configured thresholds.
+ *
+ * <p>The flow runs on an in-memory zeebe engine, Airtel is replaced by the
+ * {@link AirtelSimulator} and the job types of other connectors are completed by
+ * {@link StubWorkers}. Settings are read from system properties, which the {@code perfTest}
+ * gradle task passes on from {@code -Pperf.*} and {@code -Psimulator.*} project properties:</p>
+ * <ul>
+ *   <li>{@code perf.rate}: process instances started per second, 20 by default</li>
+ *   <li>{@code perf.duration}: how long instances are started for, PT30S by default</li>
+ *   <li>{@code perf.timeout}: how long to wait for all instances to complete, PT5M by
+ *   default</li>
+ *   <li>{@code perf.timer}: first transaction status poll timer, PT10S by default</li>
+ *   <li>{@code perf.min-throughput-ratio}: min completed instances per second as a share of the
+ *   rate, 0.5 by default</li>
+ *   <li>{@code perf.max-p50-ms} and {@code perf.max-p99-ms}: max end-to-end latencies, 10000
+ *   and 30000 by default</li>
+ *   <li>{@code simulator.*}: overrides of the simulator settings</li>
+ * </ul>
+ *
+ * <p>The report is printed and written to {@code build/reports/perf/process-flow.json}.</p>
+ */
+@SpringBootTest(classes = AirtelMoneyConnectorApplication.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProcessFlowPerfTest {
+
+    private static final String PROCESS_ID = "airtel_flow_erply-oaf";
+    private static final String CHANNEL_REQUEST = "{\"payer\":{\"partyIdInfo\":{"
+        + "\"partyIdType\":\"MSISDN\",\"partyIdentifier\":\"250730000000\"}},"
+        + "\"payee\":{\"partyIdInfo\":{\"partyIdType\":\"ACCOUNTID\",\"partyIdentifier\":"
+        + "\"60649568\"}},\"amount\":{\"amount\":\"20\",\"currency\":\"RWF\"}}";
+
+    private static final ZeebeTestEngine engine = startEngine();
+    private static final int simulatorPort = freePort();
+    private static final int callbackPort = freePort();
+    private static AirtelSimulator simulator;
+
+    @DynamicPropertySource
+    static void connectorProperties(DynamicPropertyRegistry registry) {
+        registry.add("zeebe.broker.contactpoint", engine::getGatewayAddress);
+        registry.add("airtel.api.base-url", () -> "http://localhost:" + simulatorPort);
+        registry.add("camel.server-port", () -> callbackPort);
+        registry.add("skip.enabled", () -> false);
+    }
+
+    @BeforeAll
+    static void startSimulator() throws IOException {
+        List<String> args = new ArrayList<>(List.of(
+            "--port=" + simulatorPort,
+            "--callback.url=http://localhost:" + callbackPort + "/collections/callback",
+            "--settlement.median-ms=2000",
+            "--callback.probability=0.9"));
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith("simulator."))
+            .forEach(name -> args.add("--" + name.substring("simulator.".length()) + "="
+                + System.getProperty(name)));
+        simulator = new AirtelSimulator(SimulatorConfig.load(args.toArray(String[]::new)));
+        simulator.start();
+    }
+
+    @AfterAll
+    static void stop() {
+        simulator.stop();
+        engine.stop();
+    }
+
+    @Test
+    void processFlowKeepsUpWithTheConfiguredRate() throws Exception {
+        int rate = Integer.getInteger("perf.rate", 20);
+        Duration duration = Duration.parse(System.getProperty("perf.duration", "PT30S"));
+        Duration timeout = Duration.parse(System.getProperty("perf.timeout", "PT5M"));
+        String timer = System.getProperty("perf.timer", "PT10S");
+        double minThroughputRatio = Double.parseDouble(
+            System.getProperty("perf.min-throughput-ratio", "0.5"));
+        long maxP50 = Long.getLong("perf.max-p50-ms", 10_000);
+        long maxP99 = Long.getLong("perf.max-p99-ms", 30_000);
+        int instances = (int) (rate * duration.toSeconds());
+
+        ZeebeClient client = engine.createClient();
+        client.newDeployResourceCommand()
+            .addResourceFromClasspath("airtel_flow_erply-oaf.bpmn")
+            .send()
+            .join();
+        StubWorkers.open(client);
+
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        AtomicInteger started = new AtomicInteger();
+        ScheduledExecutorService starter = Executors.newSingleThreadScheduledExecutor();
+        starter.scheduleAtFixedRate(() -> {
+            int instance = started.getAndIncrement();
+            if (instance < instances) {
+                client.newCreateInstanceCommand()
+                    .bpmnProcessId(PROCESS_ID)
+                    .latestVersion()
+                    .variables(Map.of(
+                        "channelRequest", CHANNEL_REQUEST,
+                        "transactionId", runId + "-" + instance,
+                        "timer", timer,
+                        "isNotificationsSuccessEnabled", true,
+                        "isNotificationsFailureEnabled", true))
+                    .send();
+            }
+        }, 0, TimeUnit.SECONDS.toMicros(1) / rate, TimeUnit.MICROSECONDS);
+
+        StageLatencies latencies;
+        long deadline = System.nanoTime() + duration.plus(timeout).toNanos();
+        do {
+            Thread.sleep(1000);
+            latencies = StageLatencies.collect(engine.getRecordStreamSource());
+        } while (latencies.getCompleted() < instances && System.nanoTime() < deadline);
+        starter.shutdownNow();
+        client.close();
+
+        System.out.printf("Process flow at %d instances/s for %s%n%s", rate, duration, latencies);
+        writeReport(latencies);
+
+        assertEquals(instances, latencies.getCompleted(), "Instances completed within timeout");
+        assertTrue(latencies.getThroughput() >= rate * minThroughputRatio,
+            "Throughput " + latencies.getThroughput() + " instances/s is below "
+                + rate * minThroughputRatio);
+        assertTrue(latencies.getEndToEnd().p50() <= maxP50,
+            "End-to-end p50 " + latencies.getEndToEnd().p50() + " ms is above " + maxP50);
+        assertTrue(latencies.getEndToEnd().p99() <= maxP99,
+            "End-to-end p99 " + latencies.getEndToEnd().p99() + " ms is above " + maxP99);
+    }
+
+    private static void writeReport(StageLatencies latencies) throws IOException {
+        Path report = Path.of("build", "reports", "perf", "process-flow.json");
+        Files.createDirectories(report.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValue(report.toFile(), latencies.toMap());
+    }
+
+    private static ZeebeTestEngine startEngine() {
+        ZeebeTestEngine testEngine = EngineFactory.create();
+        testEngine.start();
+        return testEngine;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
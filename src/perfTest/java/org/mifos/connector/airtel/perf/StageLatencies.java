@@ -0,0 +1,172 @@
+package org.mifos.connector.airtel.perf;
+
+import io.camunda.zeebe.process.test.api.RecordStreamSource;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.camunda.zeebe.protocol.record.value.BpmnElementType;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end and per-stage latencies of the completed process instances, read from the record
+ * stream of the test engine.
+ *
+ * <p>Stages are delimited by these milestones of each instance: process started, collection
+ * request sent ({@code init-airtel-transfer} completed), transaction settled
+ * ({@code transfer-settlement-erply} activated) and process completed.</p>
+ */
+final class StageLatencies {
+
+    private static final int STARTED = 0;
+    private static final int INITIATED = 1;
+    private static final int SETTLED = 2;
+    private static final int COMPLETED = 3;
+
+    private final int completed;
+    private final long firstStartedAt;
+    private final long lastCompletedAt;
+    private final Map<String, Summary> stages;
+
+    private StageLatencies(int completed, long firstStartedAt, long lastCompletedAt,
+                           Map<String, Summary> stages) {
+        this.completed = completed;
+        this.firstStartedAt = firstStartedAt;
+        this.lastCompletedAt = lastCompletedAt;
+        this.stages = stages;
+    }
+
+    /**
+     * Reads the milestones of all process instances from the record stream.
+     *
+     * @param recordStreamSource {@link RecordStreamSource} of the test engine
+     * @return {@link StageLatencies} of the completed instances
+     */
+    static StageLatencies collect(RecordStreamSource recordStreamSource) {
+        Map<Long, long[]> milestones = new HashMap<>();
+        for (Record<ProcessInstanceRecordValue> record
+            : recordStreamSource.getProcessInstanceRecords()) {
+            ProcessInstanceRecordValue value = record.getValue();
+            int milestone = milestone(value, record.getIntent());
+            if (milestone >= 0) {
+                milestones.computeIfAbsent(value.getProcessInstanceKey(),
+                    key -> new long[COMPLETED + 1])[milestone] = record.getTimestamp();
+            }
+        }
+
+        List<long[]> instances = new ArrayList<>();
+        long firstStartedAt = Long.MAX_VALUE;
+        long lastCompletedAt = Long.MIN_VALUE;
+        for (long[] instance : milestones.values()) {
+            if (instance[COMPLETED] != 0) {
+                instances.add(instance);
+                firstStartedAt = Math.min(firstStartedAt, instance[STARTED]);
+                lastCompletedAt = Math.max(lastCompletedAt, instance[COMPLETED]);
+            }
+        }
+        Map<String, Summary> stages = new LinkedHashMap<>();
+        stages.put("end-to-end", Summary.of(instances, STARTED, COMPLETED));
+        stages.put("init-airtel-transfer", Summary.of(instances, STARTED, INITIATED));
+        stages.put("airtel-settlement", Summary.of(instances, INITIATED, SETTLED));
+        stages.put("settlement-and-notifications", Summary.of(instances, SETTLED, COMPLETED));
+        return new StageLatencies(instances.size(), firstStartedAt, lastCompletedAt, stages);
+    }
+
+    int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the completed instances per second, from the first start to the last completion.
+     *
+     * @return throughput in instances per second
+     */
+    double getThroughput() {
+        return completed == 0 ? 0 : completed * 1000.0 / Math.max(1,
+            lastCompletedAt - firstStartedAt);
+    }
+
+    Map<String, Summary> getStages() {
+        return stages;
+    }
+
+    Summary getEndToEnd() {
+        return stages.get("end-to-end");
+    }
+
+    private static int milestone(ProcessInstanceRecordValue value, Intent intent) {
+        if (value.getBpmnElementType() == BpmnElementType.PROCESS) {
+            if (intent == ProcessInstanceIntent.ELEMENT_ACTIVATED) {
+                return STARTED;
+            }
+            return intent == ProcessInstanceIntent.ELEMENT_COMPLETED ? COMPLETED : -1;
+        }
+        if ("init-airtel-transfer".equals(value.getElementId())
+            && intent == ProcessInstanceIntent.ELEMENT_COMPLETED) {
+            return INITIATED;
+        }
+        if ("transfer-settlement-erply".equals(value.getElementId())
+            && intent == ProcessInstanceIntent.ELEMENT_ACTIVATED) {
+            return SETTLED;
+        }
+        return -1;
+    }
+
+    /**
+     * Latency percentiles of a stage, in milliseconds.
+     *
+     * @param p50 median latency
+     * @param p99 99th percentile latency
+     * @param max max latency
+     */
+    record Summary(long p50, long p99, long max) {
+
+        static Summary of(List<long[]> instances, int from, int to) {
+            long[] latencies = instances.stream()
+                .mapToLong(instance -> instance[to] - instance[from])
+                .sorted()
+                .toArray();
+            if (latencies.length == 0) {
+                return new Summary(0, 0, 0);
+            }
+            return new Summary(percentile(latencies, 0.5), percentile(latencies, 0.99),
+                latencies[latencies.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %6d ms  p99 %6d ms  max %6d ms", p50, p99, max);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format(
+            "%d instances completed, %.1f instances/s%n", completed, getThroughput()));
+        stages.forEach((stage, summary) -> report.append(String.format("  %-30s %s%n", stage,
+            summary)));
+        return report.toString();
+    }
+
+    /**
+     * Returns the report as a map, for writing it as JSON.
+     *
+     * @return key/value pairs of the report
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("completed", completed);
+        report.put("throughput", getThroughput());
+        report.put("stages", stages);
+        return report;
+    }
+}
@@ -0,0 +1,65 @@
+package org.mifos.connector.airtel.perf;
+
+import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.response.ActivatedJob;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Completes the jobs of the BPMN flow that are handled by other connectors, so that process
+ * instances run to the end.
+ */
+final class StubWorkers {
+
+    private static final String NOTIFICATION_MESSAGE = "notification-request";
+    private static final int MAX_JOBS_ACTIVE = 200;
+
+    private StubWorkers() {
+    }
+
+    /**
+     * Opens a worker for each job type that isn't handled by this connector.
+     *
+     * @param client {@link ZeebeClient} of the test engine
+     */
+    static void open(ZeebeClient client) {
+        complete(client, "transfer-settlement-erply", List.of("transactionFailed"),
+            job -> Map.of("transferSettlementFailed",
+                Boolean.TRUE.equals(job.getVariablesAsMap().get("transactionFailed"))));
+        complete(client, "transaction-success", List.of(), job -> Map.of());
+        complete(client, "transaction-failure", List.of(), job -> Map.of());
+        deliverNotification(client, "notification-service");
+        deliverNotification(client, "get-notification-status");
+    }
+
+    private static void complete(ZeebeClient client, String jobType, List<String> variables,
+                                 Function<ActivatedJob, Map<String, Object>> result) {
+        client.newWorker()
+            .jobType(jobType)
+            .handler((jobClient, job) -> jobClient.newCompleteCommand(job.getKey())
+                .variables(result.apply(job))
+                .send()
+                .join())
+            .name("stub-" + jobType)
+            .fetchVariables(variables)
+            .maxJobsActive(MAX_JOBS_ACTIVE)
+            .open();
+    }
+
+    /**
+     * Completes the notification job and publishes the delivery report the flow waits for.
+     */
+    private static void deliverNotification(ZeebeClient client, String jobType) {
+        complete(client, jobType, List.of("transactionId"), job -> {
+            client.newPublishMessageCommand()
+                .messageName(NOTIFICATION_MESSAGE)
+                .correlationKey((String) job.getVariablesAsMap().get("transactionId"))
+                .timeToLive(Duration.ofMinutes(1))
+                .variables(Map.of("isMessageDelivered", true))
+                .send();
+            return Map.of();
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package org.mifos.connector.airtel.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simulates the Airtel auth, collection and transaction status endpoints, and posts callbacks
+ * to the connector, so that the connector can be load tested offline.
+ *
+ * <p>Transactions are accepted in the TIP state and settle after a sampled settlement time,
+ * unless they are stuck. Latency, error injection, token expiry, settlement outcomes and
+ * callbacks are configured in {@code simulator.properties}, see {@link SimulatorConfig}.</p>
+ *
+ * <p>Run it with {@code ./gradlew runSimulator --args='--latency.median-ms=200'}.</p>
+ */
+public final class AirtelSimulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AirtelSimulator.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimulatorConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final HttpClient httpClient;
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final Map<String, SimulatedTransaction> transactions = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    /**
+     * Creates an instance of {@link AirtelSimulator} with the given settings.
+     *
+     * @param config {@link SimulatorConfig}
+     */
+    public AirtelSimulator(SimulatorConfig config) {
+        this.config = config;
+        this.scheduler = Executors.newScheduledThreadPool(config.threads());
+        this.httpClient = HttpClient.newBuilder().executor(scheduler).build();
+    }
+
+    public static void main(String[] args) throws IOException {
+        new AirtelSimulator(SimulatorConfig.load(args)).start();
+    }
+
+    /**
+     * Starts listening on the configured port.
+     *
+     * @throws IOException if the port can't be bound
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(config.port()), 0);
+        server.createContext(config.authEndpoint(), exchange -> handle(exchange, this::auth));
+        server.createContext(config.collectionEndpoint(),
+            exchange -> handle(exchange, this::collection));
+        server.createContext(config.statusEndpoint(),
+            exchange -> handle(exchange, this::status));
+        server.setExecutor(scheduler);
+        server.start();
+        logger.info("Airtel simulator listening on port {} with {}", config.port(), config);
+    }
+
+    public void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reads the request, injects errors, and writes the response once the sampled latency has
+     * passed, without holding a thread in the meantime.
+     */
+    private void handle(HttpExchange exchange, Handler handler) {
+        Random random = ThreadLocalRandom.current();
+        Response response;
+        try (InputStream body = exchange.getRequestBody()) {
+            JsonNode request = "POST".equals(exchange.getRequestMethod())
+                ? objectMapper.readTree(body) : null;
+            double roll = random.nextDouble();
+            if (roll < config.rateLimitProbability()) {
+                response = error(429, "Too many requests");
+            } else if (roll < config.rateLimitProbability() + config.serverErrorProbability()) {
+                response = error(random.nextBoolean() ? 500 : 503, "Internal server error");
+            } else {
+                response = handler.handle(exchange, request, random);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to handle {}", exchange.getRequestURI(), e);
+            response = error(500, String.valueOf(e.getMessage()));
+        }
+        Response delayed = response;
+        scheduler.schedule(() -> send(exchange, delayed), config.sampleLatencyMillis(random),
+            TimeUnit.MILLISECONDS);
+    }
+
+    private Response auth(HttpExchange exchange, JsonNode request, Random random) {
+        if (request == null || !request.hasNonNull("client_id")) {
+            return error(400, "Missing client_id");
+        }
+        String token = UUID.randomUUID().toString();
+        tokens.put(token, System.nanoTime()
+            + TimeUnit.SECONDS.toNanos(config.tokenExpiresInSeconds()));
+        ObjectNode body = objectMapper.createObjectNode()
+            .put("access_token", token)
+            .put("expires_in", config.tokenExpiresInSeconds())
+            .put("token_type", "bearer");
+        return new Response(200, body);
+    }
+
+    private Response collection(HttpExchange exchange, JsonNode request, Random random) {
+        if (!isAuthorized(exchange)) {
+            return error(401, "Invalid or expired access token");
+        }
+        String id = request == null ? null
+            : request.path("transaction").path("id").asText(null);
+        if (id == null) {
+            return error(400, "Missing transaction id");
+        }
+        if (random.nextDouble() < config.collectionFailureProbability()) {
+            return airtelResponse(id, null, null, false, "DP00800001007",
+                "Transaction failed, insufficient funds");
+        }
+        boolean stuck = random.nextDouble() < config.stuckProbability();
+        long settlementMillis = config.sampleSettlementMillis(random);
+        String outcome = random.nextDouble() < config.successProbability() ? "TS" : "TF";
+        SimulatedTransaction transaction = new SimulatedTransaction(id,
+            "SIM" + Long.toUnsignedString(random.nextLong(), 36),
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settlementMillis),
+            stuck ? "TIP" : outcome);
+        if (transactions.putIfAbsent(id, transaction) != null) {
+            return airtelResponse(id, null, null, false, "DP00800001009",
+                "Duplicate transaction id");
+        }
+        scheduler.schedule(() -> transactions.remove(id),
+            Math.max(config.retentionMillis(), settlementMillis), TimeUnit.MILLISECONDS);
+        if (!stuck && config.isCallbackEnabled()
+            && random.nextDouble() < config.callbackProbability()) {
+            scheduler.schedule(() -> postCallback(transaction),
+                settlementMillis + config.callbackDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+        return airtelResponse(id, null, "Success.", true, "DP00800001006",
+            "In process");
+    }
+
+    private Response status(HttpExchange exchange, JsonNode request, Random random) {
+        if (!isAuthorized(exchange)) {
+            return error(401, "Invalid or expired access token");
+        }
+        String id = exchange.getRequestURI().getPath()
+            .substring(config.statusEndpoint().length());
+        SimulatedTransaction transaction = transactions.get(id);
+        if (transaction == null) {
+            return airtelResponse(id, null, null, false, "DP00800001010",
+                "Transaction not found");
+        }
+        String status = transaction.status();
+        return airtelResponse(id, "TIP".equals(status) ? null : transaction.airtelMoneyId(),
+            status, true, "DP00800001001", message(status));
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        String token = authorization.substring("Bearer ".length());
+        Long expiresAt = tokens.get(token);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiresAt >= 0) {
+            tokens.remove(token);
+            return false;
+        }
+        return true;
+    }
+
+    private void postCallback(SimulatedTransaction transaction) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("transaction")
+            .put("id", transaction.id())
+            .put("message", message(transaction.outcome()))
+            .put("status_code", transaction.outcome())
+            .put("airtel_money_id", transaction.airtelMoneyId());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(config.callbackUrl()))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    logger.warn("Callback for {} failed: {}", transaction.id(),
+                        throwable.getMessage());
+                } else if (response.statusCode() >= 300) {
+                    logger.warn("Callback for {} answered with {}", transaction.id(),
+                        response.statusCode());
+                }
+            });
+    }
+
+    private static Response airtelResponse(String id, String airtelMoneyId, String status,
+                                           boolean success, String responseCode,
+                                           String message) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode transaction = body.putObject("data").putObject("transaction").put("id", id);
+        if (status != null) {
+            transaction.put("status", status);
+            transaction.put("message", message);
+        }
+        if (airtelMoneyId != null) {
+            transaction.put("airtel_money_id", airtelMoneyId);
+        }
+        body.putObject("status")
+            .put("code", "200")
+            .put("message", message)
+            .put("result_code", success ? "ESB000010" : "ESB000001")
+            .put("response_code", responseCode)
+            .put("success", success);
+        return new Response(200, body);
+    }
+
+    private static String message(String status) {
+        return switch (status) {
+            case "TS" -> "Paid";
+            case "TF" -> "Failed";
+            default -> "In process";
+        };
+    }
+
+    private static Response error(int statusCode, String message) {
+        ObjectNode body = objectMapper.createObjectNode()
+            .put("error", message)
+            .put("error_description", message);
+        return new Response(statusCode, body);
+    }
+
+    private static void send(HttpExchange exchange, Response response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response.body());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.statusCode(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to respond to {}: {}", exchange.getRequestURI(), e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange, JsonNode request, Random random);
+    }
+
+    private record Response(int statusCode, JsonNode body) { }
+
+    /**
+     * A transaction in the TIP state until {@code settlesAt}, in the outcome state afterwards.
+     * Stuck transactions have TIP as outcome.
+     */
+    private record SimulatedTransaction(String id, String airtelMoneyId, long settlesAt,
+                                        String outcome) {
+
+        String status() {
+            return System.nanoTime() - settlesAt >= 0 ? outcome : "TIP";
+        }
+    }
+}
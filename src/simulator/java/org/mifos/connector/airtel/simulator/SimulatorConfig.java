@@ -0,0 +1,130 @@
+package org.mifos.connector.airtel.simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Settings of the {@link AirtelSimulator}, read from {@code simulator.properties} and overridden
+ * by {@code --key=value} arguments.
+ *
+ * @param port                         port the simulator listens on
+ * @param threads                      threads reading requests and writing responses
+ * @param authEndpoint                 path of the auth endpoint
+ * @param collectionEndpoint           path of the collection endpoint
+ * @param statusEndpoint               path of the transaction status endpoint, followed by the ID
+ * @param latencyMedianMillis          median response latency
+ * @param latencySigma                 shape of the log-normal latency distribution, 0 for fixed
+ * @param latencyMaxMillis             latency cap
+ * @param rateLimitProbability         probability of answering any call with a 429
+ * @param serverErrorProbability       probability of answering any call with a 5xx
+ * @param tokenExpiresInSeconds        lifetime of the access tokens
+ * @param collectionFailureProbability probability of rejecting a collection request
+ * @param settlementMedianMillis       median time from collection request to a final state
+ * @param settlementSigma              shape of the log-normal settlement time distribution
+ * @param successProbability           probability of a settled transaction ending in TS
+ * @param stuckProbability             probability of a transaction staying in TIP for good
+ * @param callbackUrl                  URL callbacks are posted to, callbacks are off when blank
+ * @param callbackProbability          probability of posting a callback when a transaction settles
+ * @param callbackDelayMillis          delay between settlement and callback
+ * @param retentionMillis              time transactions are kept after their collection request
+ */
+public record SimulatorConfig(
+    int port,
+    int threads,
+    String authEndpoint,
+    String collectionEndpoint,
+    String statusEndpoint,
+    double latencyMedianMillis,
+    double latencySigma,
+    long latencyMaxMillis,
+    double rateLimitProbability,
+    double serverErrorProbability,
+    long tokenExpiresInSeconds,
+    double collectionFailureProbability,
+    double settlementMedianMillis,
+    double settlementSigma,
+    double successProbability,
+    double stuckProbability,
+    String callbackUrl,
+    double callbackProbability,
+    long callbackDelayMillis,
+    long retentionMillis
+) {
+
+    /**
+     * Loads the defaults from {@code simulator.properties} and applies the given overrides.
+     *
+     * @param args overrides in the {@code --key=value} format
+     * @return {@link SimulatorConfig}
+     */
+    public static SimulatorConfig load(String[] args) {
+        Properties properties = new Properties();
+        try (InputStream defaults = SimulatorConfig.class
+            .getResourceAsStream("/simulator.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            properties.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new SimulatorConfig(
+            Integer.parseInt(properties.getProperty("port", "8089")),
+            Integer.parseInt(properties.getProperty("threads", "16")),
+            properties.getProperty("auth-endpoint", "/auth/oauth2/token"),
+            properties.getProperty("collection-endpoint", "/merchant/v1/payments/"),
+            properties.getProperty("status-endpoint", "/standard/v1/payments/"),
+            Double.parseDouble(properties.getProperty("latency.median-ms", "80")),
+            Double.parseDouble(properties.getProperty("latency.sigma", "0.5")),
+            Long.parseLong(properties.getProperty("latency.max-ms", "5000")),
+            Double.parseDouble(properties.getProperty("errors.rate-limit-probability", "0")),
+            Double.parseDouble(properties.getProperty("errors.server-error-probability", "0")),
+            Long.parseLong(properties.getProperty("token.expires-in-seconds", "3600")),
+            Double.parseDouble(properties.getProperty("collection.failure-probability", "0")),
+            Double.parseDouble(properties.getProperty("settlement.median-ms", "20000")),
+            Double.parseDouble(properties.getProperty("settlement.sigma", "0.8")),
+            Double.parseDouble(properties.getProperty("settlement.success-probability", "0.9")),
+            Double.parseDouble(properties.getProperty("settlement.stuck-probability", "0")),
+            properties.getProperty("callback.url", ""),
+            Double.parseDouble(properties.getProperty("callback.probability", "1")),
+            Long.parseLong(properties.getProperty("callback.delay-ms", "0")),
+            Long.parseLong(properties.getProperty("retention-ms", "3600000")));
+    }
+
+    /**
+     * Samples a response latency.
+     *
+     * @param random {@link Random}
+     * @return latency in milliseconds
+     */
+    long sampleLatencyMillis(Random random) {
+        return Math.min(logNormal(random, latencyMedianMillis, latencySigma), latencyMaxMillis);
+    }
+
+    /**
+     * Samples the time a transaction takes to settle.
+     *
+     * @param random {@link Random}
+     * @return settlement time in milliseconds
+     */
+    long sampleSettlementMillis(Random random) {
+        return logNormal(random, settlementMedianMillis, settlementSigma);
+    }
+
+    boolean isCallbackEnabled() {
+        return callbackUrl != null && !callbackUrl.isBlank();
+    }
+
+    private static long logNormal(Random random, double median, double sigma) {
+        return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+    }
+}
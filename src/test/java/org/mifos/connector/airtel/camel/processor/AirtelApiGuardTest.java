@@ -0,0 +1,105 @@
+package org.mifos.connector.airtel.camel.processor;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.store.AccessTokenStore;
+
+class AirtelApiGuardTest {
+
+    private final DefaultCamelContext camelContext = new DefaultCamelContext();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AirtelApiGuard airtelApiGuard;
+
+    @BeforeEach
+    void setUp() {
+        AirtelProps.Resilience resilience = new AirtelProps.Resilience();
+        resilience.setFailureRateThreshold(50);
+        resilience.setSlidingWindowSize(4);
+        resilience.setMinimumNumberOfCalls(4);
+        resilience.setWaitDurationInOpenState(Duration.ofMinutes(1));
+        resilience.setPermittedCallsInHalfOpenState(1);
+        resilience.setMaxConcurrentCalls(2);
+        resilience.setMaxWaitDuration(Duration.ZERO);
+        AirtelProps.RateLimit rateLimit = new AirtelProps.RateLimit();
+        rateLimit.setLimitRefreshPeriod(Duration.ofMinutes(1));
+        rateLimit.setMaxWait(Duration.ZERO);
+        rateLimit.setLimits(Map.of("auth", 2));
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setResilience(resilience);
+        airtelProps.setRateLimit(rateLimit);
+        // UG and KE share the default credentials, RW has its own
+        AccessTokenStore accessTokenStore = mock(AccessTokenStore.class);
+        when(accessTokenStore.getCredentialsKey(anyString()))
+            .thenAnswer(invocation -> "RW".equals(invocation.getArgument(0)) ? "RW" : "default");
+        airtelApiGuard = new AirtelApiGuard(airtelProps, accessTokenStore, meterRegistry);
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuitOfTheFailingCountryOnly() throws Exception {
+        Processor acquire = airtelApiGuard.acquire("collection");
+        for (int i = 0; i < 4; i++) {
+            Exchange exchange = exchange("UG");
+            acquire.process(exchange);
+            exchange.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+            airtelApiGuard.release(exchange);
+        }
+
+        CallNotPermittedException rejected = assertThrows(CallNotPermittedException.class,
+            () -> acquire.process(exchange("UG")));
+        assertTrue(AirtelApiGuard.isRejectedCall(new RuntimeException(rejected)));
+        assertDoesNotThrow(() -> acquire.process(exchange("RW")));
+    }
+
+    @Test
+    void callsBeyondTheBulkheadAreRejected() throws Exception {
+        Processor acquire = airtelApiGuard.acquire("transaction-status");
+        acquire.process(exchange("KE"));
+        Exchange inFlight = exchange("KE");
+        acquire.process(inFlight);
+
+        assertThrows(BulkheadFullException.class, () -> acquire.process(exchange("KE")));
+
+        inFlight.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+        airtelApiGuard.release(inFlight);
+        assertDoesNotThrow(() -> acquire.process(exchange("KE")));
+    }
+
+    @Test
+    void callsAreRateLimitedPerCredentialSet() throws Exception {
+        Processor acquire = airtelApiGuard.acquire("auth");
+        acquire.process(exchange("UG"));
+        acquire.process(exchange("KE"));
+
+        assertThrows(RequestNotPermitted.class, () -> acquire.process(exchange("UG")));
+        assertDoesNotThrow(() -> acquire.process(exchange("RW")));
+        assertEquals(3, meterRegistry.get("airtel.rate.limiter.wait")
+            .tag("credentials", "default").timer().count());
+    }
+
+    private Exchange exchange(String country) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(COUNTRY, country);
+        return exchange;
+    }
+}
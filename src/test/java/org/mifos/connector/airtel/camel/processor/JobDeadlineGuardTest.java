@@ -0,0 +1,119 @@
+package org.mifos.connector.airtel.camel.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.JOB_DEADLINE;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.message.BasicHttpRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.AirtelProps;
+
+class JobDeadlineGuardTest {
+
+    private final DefaultCamelContext camelContext = new DefaultCamelContext();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JobDeadlineGuard jobDeadlineGuard;
+
+    @BeforeEach
+    void setUp() {
+        AirtelProps.Deadline deadline = new AirtelProps.Deadline();
+        deadline.setReserve(Duration.ofSeconds(1));
+        deadline.setMinBudget(Duration.ofMillis(500));
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setTimeout(30000);
+        airtelProps.setDeadline(deadline);
+        jobDeadlineGuard = new JobDeadlineGuard(airtelProps, meterRegistry);
+    }
+
+    @Test
+    void callIsSkippedWhenTheBudgetIsBelowTheMinBudget() {
+        Exchange exchange = exchange(System.currentTimeMillis() + 1200);
+
+        assertThrows(JobDeadlineExceededException.class,
+            () -> jobDeadlineGuard.capTimeout(exchange));
+        assertEquals(1, meterRegistry.counter("airtel.deadline.skipped").count());
+    }
+
+    @Test
+    void timeoutIsCappedWhenTheBudgetIsBelowTheTimeout() {
+        Exchange exchange = exchange(System.currentTimeMillis() + 11000);
+
+        jobDeadlineGuard.capTimeout(exchange);
+
+        long budget = exchange.getIn().getHeader(JobDeadlineGuard.TIMEOUT_HEADER, Long.class);
+        assertTrue(budget > 9000 && budget <= 10000);
+    }
+
+    @Test
+    void timeoutIsKeptWhenTheBudgetCoversIt() {
+        Exchange exchange = exchange(System.currentTimeMillis() + 60000);
+        exchange.getIn().setHeader(JobDeadlineGuard.TIMEOUT_HEADER, 5000L);
+
+        jobDeadlineGuard.capTimeout(exchange);
+
+        assertNull(exchange.getIn().getHeader(JobDeadlineGuard.TIMEOUT_HEADER));
+    }
+
+    @Test
+    void exchangeWithoutDeadlineKeepsTheTimeout() {
+        Exchange exchange = new DefaultExchange(camelContext);
+
+        jobDeadlineGuard.capTimeout(exchange);
+
+        assertNull(jobDeadlineGuard.getBudget(exchange));
+        assertNull(exchange.getIn().getHeader(JobDeadlineGuard.TIMEOUT_HEADER));
+        assertEquals(0, meterRegistry.counter("airtel.deadline.skipped").count());
+    }
+
+    @Test
+    void interceptorCapsTheRequestTimeoutsAndStripsTheHeader() throws Exception {
+        HttpRequest request = new BasicHttpRequest("POST", "/merchant/v1/payments/");
+        request.setHeader(JobDeadlineGuard.TIMEOUT_HEADER, "2000");
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout(30000)
+            .setConnectTimeout(1000)
+            .setSocketTimeout(-1)
+            .build());
+
+        JobDeadlineGuard.timeoutInterceptor().process(request, context);
+
+        RequestConfig config = context.getRequestConfig();
+        assertEquals(2000, config.getConnectionRequestTimeout());
+        assertEquals(1000, config.getConnectTimeout());
+        assertEquals(2000, config.getSocketTimeout());
+        assertFalse(request.containsHeader(JobDeadlineGuard.TIMEOUT_HEADER));
+    }
+
+    @Test
+    void interceptorLeavesRequestsWithoutTheHeaderAlone() throws Exception {
+        HttpClientContext context = HttpClientContext.create();
+        RequestConfig config = RequestConfig.custom().setSocketTimeout(30000).build();
+        context.setRequestConfig(config);
+
+        JobDeadlineGuard.timeoutInterceptor()
+            .process(new BasicHttpRequest("GET", "/standard/v1/payments/1"), context);
+
+        assertSame(config, context.getRequestConfig());
+    }
+
+    private Exchange exchange(long deadline) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(JOB_DEADLINE, deadline);
+        return exchange;
+    }
+}
@@ -0,0 +1,39 @@
+package org.mifos.connector.airtel.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CollectionRequestDtoTest {
+
+    private static final Map<String, String> COUNTRY_CODES = Map.of("rwf", "RW");
+
+    @Test
+    void readsOnlyTheRequiredFieldsFromTheChannelRequest() {
+        String channelRequest = "{\"payer\":{\"partyIdInfo\":{\"partyIdType\":\"MSISDN\","
+            + "\"partyIdentifier\":\"+250730000000\"},\"name\":{\"first\":\"A\"}},"
+            + "\"payee\":{\"partyIdInfo\":{\"partyIdentifier\":\"24322607\"}},"
+            + "\"extensionList\":[{\"key\":\"amount\",\"value\":1}],"
+            + "\"amount\":{\"amount\":\"20.50\",\"currency\":\"RWF\"}}";
+
+        CollectionRequestDto dto = CollectionRequestDto.fromChannelRequest(channelRequest,
+            "b1f4a0c2", COUNTRY_CODES, "oaf-");
+
+        assertEquals(730000000L, dto.getSubscriber().getMsisdn());
+        assertEquals("RWF", dto.getSubscriber().getCurrency());
+        assertEquals("RW", dto.getSubscriber().getCountry());
+        assertEquals(new BigDecimal("20.50"), dto.getTransaction().getAmount());
+        assertEquals("oaf-b1f4a0c2", dto.getTransaction().getId());
+    }
+
+    @Test
+    void rejectsAChannelRequestWithoutAPayer() {
+        String channelRequest = "{\"amount\":{\"amount\":20,\"currency\":\"RWF\"}}";
+
+        assertThrows(IllegalArgumentException.class, () -> CollectionRequestDto
+            .fromChannelRequest(channelRequest, "b1f4a0c2", COUNTRY_CODES, null));
+    }
+}
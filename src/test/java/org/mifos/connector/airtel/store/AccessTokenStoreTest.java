@@ -0,0 +1,207 @@
+package org.mifos.connector.airtel.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.AUTH_CREDENTIALS;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.COUNTRY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.camel.processor.JobDeadlineExceededException;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.dto.AuthResponseDto;
+
+class AccessTokenStoreTest {
+
+    private static final Duration FAILURE_BACKOFF = Duration.ofMillis(200);
+
+    private ProducerTemplate producerTemplate;
+    private AccessTokenStore accessTokenStore;
+
+    @BeforeEach
+    void setUp() {
+        producerTemplate = mock(ProducerTemplate.class);
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setTokenRefreshSkew(Duration.ofSeconds(60));
+        airtelProps.setTokenRefreshFailureBackoff(FAILURE_BACKOFF);
+        airtelProps.setCredentials(credentials("default-client"));
+        airtelProps.setCountryCredentials(Map.of("UG", credentials("ug-client")));
+        accessTokenStore = new AccessTokenStore(producerTemplate, airtelProps,
+            new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessTokenStore.shutdown();
+    }
+
+    @Test
+    void concurrentCallersShareASingleRefresh() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenAnswer(invocation -> {
+                release.await();
+                return authResponse("token", 3600);
+            });
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<Future<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            tokens.add(callers.submit(accessTokenStore::getAccessToken));
+        }
+        release.countDown();
+        for (Future<String> token : tokens) {
+            assertEquals("token", token.get());
+        }
+        callers.shutdown();
+
+        verify(producerTemplate, times(1))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    @Test
+    void failedRefreshIsRetriedOnlyAfterTheBackoff() throws Exception {
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenReturn(authResponse(null, 0))
+            .thenReturn(authResponse("token", 3600));
+
+        assertThrows(CompletionException.class, accessTokenStore::getAccessToken);
+        assertThrows(CompletionException.class, accessTokenStore::getAccessToken);
+        verify(producerTemplate, times(1))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+
+        Thread.sleep(FAILURE_BACKOFF.multipliedBy(2).toMillis());
+        assertEquals("token", accessTokenStore.getAccessToken());
+        verify(producerTemplate, times(2))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    @Test
+    void shortLivedTokenIsNotRefreshedOnEveryCall() {
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenReturn(authResponse("token", 30));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("token", accessTokenStore.getAccessToken());
+        }
+
+        verify(producerTemplate, times(1))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    @Test
+    void callerStopsWaitingForTheRefreshAtItsDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenAnswer(invocation -> {
+                release.await();
+                return authResponse("token", 3600);
+            });
+
+        assertThrows(JobDeadlineExceededException.class,
+            () -> accessTokenStore.getAccessToken("RW", Duration.ofMillis(50)));
+        release.countDown();
+        assertEquals("token", accessTokenStore.getAccessToken("RW", Duration.ofSeconds(5)));
+
+        verify(producerTemplate, times(1))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    @Test
+    void refreshReturnsTheCurrentTokenWhileItIsFresh() {
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenReturn(authResponse("token", 3600));
+
+        assertEquals("token", accessTokenStore.getAccessToken("RW"));
+        assertEquals("token", accessTokenStore.refresh("RW").join().value());
+
+        verify(producerTemplate, times(1))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    @Test
+    void slowFetchDoesNotHoldUpOtherCredentialSets() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenAnswer(invocation -> {
+                Exchange exchange = authResponse(null, 0);
+                invocation.getArgument(1, Processor.class).process(exchange);
+                if ("UG".equals(exchange.getProperty(COUNTRY, String.class))) {
+                    release.await();
+                }
+                exchange.getIn().setBody(new AuthResponseDto("token", 3600, "Bearer"));
+                return exchange;
+            });
+
+        CompletableFuture<AccessToken> slow = accessTokenStore.refresh("UG");
+        assertEquals("token", accessTokenStore.getAccessToken("RW", Duration.ofSeconds(5)));
+        assertFalse(slow.isDone());
+        release.countDown();
+        assertEquals("token", slow.join().value());
+    }
+
+    @Test
+    void eachCredentialSetHasItsOwnToken() {
+        when(producerTemplate.send(eq("direct:get-access-token"), any(Processor.class)))
+            .thenAnswer(invocation -> {
+                Exchange exchange = authResponse(null, 0);
+                invocation.getArgument(1, Processor.class).process(exchange);
+                AirtelProps.Credentials credentials = exchange
+                    .getProperty(AUTH_CREDENTIALS, AirtelProps.Credentials.class);
+                exchange.getIn().setBody(
+                    new AuthResponseDto(credentials.getClientId() + "-token", 3600, "Bearer"));
+                return exchange;
+            });
+
+        assertEquals("ug-client-token", accessTokenStore.getAccessToken("UG"));
+        assertEquals("ug-client-token", accessTokenStore.getAccessToken("ug"));
+        assertEquals("ug-client-token", accessTokenStore.getAccessToken("Ug", Duration.ZERO));
+        assertEquals("default-client-token", accessTokenStore.getAccessToken("RW"));
+        assertEquals("default-client-token", accessTokenStore.getAccessToken("KE"));
+        assertEquals("UG", accessTokenStore.getCredentialsKey("UG"));
+        assertEquals("UG", accessTokenStore.getCredentialsKey("ug"));
+        assertEquals(AccessTokenStore.DEFAULT_CREDENTIALS,
+            accessTokenStore.getCredentialsKey("KE"));
+
+        verify(producerTemplate, times(2))
+            .send(eq("direct:get-access-token"), any(Processor.class));
+    }
+
+    private static AirtelProps.Credentials credentials(String clientId) {
+        AirtelProps.Credentials credentials = new AirtelProps.Credentials();
+        credentials.setClientId(clientId);
+        return credentials;
+    }
+
+    private static Exchange authResponse(String token, int expiresIn) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        if (token != null) {
+            exchange.getIn().setBody(new AuthResponseDto(token, expiresIn, "Bearer"));
+        }
+        return exchange;
+    }
+}
@@ -0,0 +1,90 @@
+package org.mifos.connector.airtel.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.AirtelProps;
+
+class CollectionRequestStoreTest {
+
+    private static final String TRANSACTION_ID = "b1f4a0c2";
+
+    private CollectionRequestStore collectionRequestStore;
+    private AtomicInteger sent;
+
+    @BeforeEach
+    void setUp() {
+        AirtelProps.Idempotency idempotency = new AirtelProps.Idempotency();
+        idempotency.setMaxSize(100);
+        idempotency.setTtl(Duration.ofHours(1));
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setIdempotency(idempotency);
+        collectionRequestStore = new CollectionRequestStore(airtelProps);
+        sent = new AtomicInteger();
+    }
+
+    @Test
+    void completedRequestIsNotSentAgain() {
+        submit(succeeding()).join();
+
+        assertEquals(Map.of("transactionFailed", false), submit(succeeding()).join());
+        assertEquals(1, sent.get());
+    }
+
+    @Test
+    void requestThatNeverReachedAirtelIsSentAgain() {
+        assertThrows(CompletionException.class,
+            () -> submit(failing(new ConnectException("Connection refused"))).join());
+        assertThrows(CompletionException.class, () -> submit(failing(
+            CallNotPermittedException.createCallNotPermittedException(
+                CircuitBreaker.ofDefaults("collection"))))
+            .join());
+
+        submit(succeeding()).join();
+        assertEquals(3, sent.get());
+    }
+
+    @Test
+    void requestThatMayHaveReachedAirtelIsNotSentAgain() {
+        CompletionException failure = assertThrows(CompletionException.class,
+            () -> submit(failing(new SocketTimeoutException("Read timed out"))).join());
+        assertTrue(CollectionRequestStore.isOutcomeUnknown(failure));
+
+        CompletionException retry = assertThrows(CompletionException.class,
+            () -> submit(succeeding()).join());
+        assertTrue(CollectionRequestStore.isOutcomeUnknown(retry));
+        assertEquals(1, sent.get());
+    }
+
+    private CompletableFuture<Map<String, Object>> submit(
+        Supplier<CompletableFuture<Map<String, Object>>> request) {
+        return collectionRequestStore.submit(TRANSACTION_ID, request);
+    }
+
+    private Supplier<CompletableFuture<Map<String, Object>>> succeeding() {
+        return () -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(Map.of("transactionFailed", false));
+        };
+    }
+
+    private Supplier<CompletableFuture<Map<String, Object>>> failing(Throwable failure) {
+        return () -> {
+            sent.incrementAndGet();
+            return CompletableFuture.failedFuture(new CompletionException(failure));
+        };
+    }
+}
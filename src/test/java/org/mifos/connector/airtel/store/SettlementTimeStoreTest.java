@@ -0,0 +1,55 @@
+package org.mifos.connector.airtel.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.AirtelProps;
+
+class SettlementTimeStoreTest {
+
+    private SettlementTimeStore settlementTimeStore;
+
+    @BeforeEach
+    void setUp() {
+        AirtelProps.Poll poll = new AirtelProps.Poll();
+        poll.setAdaptive(true);
+        poll.setPercentile(0.5);
+        poll.setJitter(0);
+        poll.setMinDelay(Duration.ofSeconds(5));
+        poll.setMaxDelay(Duration.ofMinutes(10));
+        poll.setMinSamples(4);
+        poll.setWindowSize(100);
+        AirtelProps.TransactionState transactionState = new AirtelProps.TransactionState();
+        transactionState.setMaxSize(100);
+        transactionState.setTtl(Duration.ofHours(1));
+        AirtelProps airtelProps = new AirtelProps();
+        airtelProps.setPoll(poll);
+        airtelProps.setTransactionState(transactionState);
+        settlementTimeStore = new SettlementTimeStore(airtelProps);
+    }
+
+    @Test
+    void firstPollIsScheduledFromTheSettlementTimesOfTheCountry() {
+        for (long seconds : new long[] {10, 20, 30, 40}) {
+            settlementTimeStore.record("UG:UGX", seconds * 1000);
+        }
+        for (long seconds : new long[] {100, 200, 300, 400}) {
+            settlementTimeStore.record("KE:KES", seconds * 1000);
+        }
+
+        assertEquals("PT20S", settlementTimeStore.getInitialTimer("UG", "UGX"));
+        assertEquals("PT200S", settlementTimeStore.getInitialTimer("KE", "KES"));
+        assertNull(settlementTimeStore.getInitialTimer("RW", "RWF"));
+    }
+
+    @Test
+    void timerIsDoubledAndCappedUntilSettlementTimesAreKnown() {
+        assertEquals("PT128S",
+            settlementTimeStore.getNextTimer("b1f4a0c2", "RW", "RWF", "PT1M30S"));
+        assertEquals("PT600S",
+            settlementTimeStore.getNextTimer("b1f4a0c2", "RW", "RWF", "PT512S"));
+    }
+}
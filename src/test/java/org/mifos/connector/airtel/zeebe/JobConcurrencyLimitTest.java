@@ -0,0 +1,110 @@
+package org.mifos.connector.airtel.zeebe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.ZeebeWorkerProps;
+
+class JobConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+    private JobConcurrencyLimit limit;
+
+    @BeforeEach
+    void setUp() {
+        ZeebeWorkerProps.Limit settings = new ZeebeWorkerProps.Limit();
+        settings.setEnabled(true);
+        settings.setInitial(4);
+        settings.setMin(2);
+        settings.setMax(6);
+        settings.setBackoffRatio(0.5);
+        settings.setLatencyThreshold(Duration.ofSeconds(5));
+        limit = new JobConcurrencyLimit(settings);
+    }
+
+    @Test
+    void jobsPastTheLimitAreRejected() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(4, limit.getInFlight());
+    }
+
+    @Test
+    void limitGrowsWhileInUseAndUpToMax() {
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < limit.getLimit(); j++) {
+                limit.tryAcquire();
+            }
+            limit.release(FAST, false);
+            while (limit.getInFlight() > 0) {
+                limit.release(FAST, false);
+            }
+        }
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    void limitStaysWhenMostlyIdle() {
+        limit.tryAcquire();
+        limit.release(FAST, false);
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void limitShrinksOnSlowOrFailedJobsDownToMin() {
+        limit.tryAcquire();
+        limit.release(SLOW, false);
+        assertEquals(2, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.release(FAST, true);
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void fixedLimitKeepsItsCapacity() {
+        JobConcurrencyLimit fixed = JobConcurrencyLimit.fixed(3);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(fixed.tryAcquire());
+        }
+        assertFalse(fixed.tryAcquire());
+
+        fixed.release(SLOW, true);
+        fixed.release(FAST, false);
+        fixed.release(FAST, false);
+        assertEquals(3, fixed.getLimit());
+        assertEquals(0, fixed.getInFlight());
+    }
+
+    @Test
+    void capacityIsTheRoomLeftUnderTheLimit() throws InterruptedException {
+        limit.tryAcquire();
+        assertEquals(3, limit.awaitCapacity(0));
+
+        while (limit.tryAcquire()) {
+            // fills the limit
+        }
+        assertEquals(0, limit.awaitCapacity(10));
+    }
+
+    @Test
+    void awaitingCapacityWakesUpOnRelease() throws InterruptedException {
+        while (limit.tryAcquire()) {
+            // fills the limit
+        }
+        Thread releaser = new Thread(() -> limit.release(FAST, false));
+        releaser.start();
+        assertTrue(limit.awaitCapacity(TimeUnit.SECONDS.toMillis(10)) > 0);
+        releaser.join();
+    }
+}
@@ -0,0 +1,26 @@
+package org.mifos.connector.airtel.zeebe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class LimitedJobPollerTest {
+
+    @Test
+    void failureBackoffStartsAtThePollIntervalAndDoubles() {
+        long backoff = LimitedJobPoller.nextFailureBackoff(0, 50);
+        assertEquals(50, backoff);
+
+        backoff = LimitedJobPoller.nextFailureBackoff(backoff, 50);
+        assertEquals(100, backoff);
+    }
+
+    @Test
+    void failureBackoffIsCapped() {
+        long backoff = 0;
+        for (int i = 0; i < 20; i++) {
+            backoff = LimitedJobPoller.nextFailureBackoff(backoff, 50);
+        }
+        assertEquals(LimitedJobPoller.MAX_FAILURE_BACKOFF.toMillis(), backoff);
+    }
+}
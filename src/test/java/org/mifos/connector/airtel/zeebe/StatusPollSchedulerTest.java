@@ -0,0 +1,163 @@
+package org.mifos.connector.airtel.zeebe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mifos.connector.airtel.camel.config.CamelProperties.IS_TRANSACTION_PENDING;
+import static org.mifos.connector.airtel.zeebe.ZeebeVariables.TIMER;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.connector.airtel.dto.AirtelProps;
+import org.mifos.connector.airtel.dto.CollectionRequestDto;
+import org.mifos.connector.airtel.store.TransactionOutcome;
+import org.mifos.connector.airtel.store.TransactionStateStore;
+
+class StatusPollSchedulerTest {
+
+    private static final String TRANSACTION_ID = "b1f4a0c2";
+    private static final String ROUTE = "direct:get-transaction-status-base";
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(30);
+
+    private ProducerTemplate producerTemplate;
+    private TransactionStateStore transactionStateStore;
+    private StatusPollScheduler scheduler;
+    private CollectionRequestDto collectionRequestDto;
+
+    @BeforeEach
+    void setUp() {
+        producerTemplate = mock(ProducerTemplate.class);
+        AirtelProps airtelProps = new AirtelProps();
+        AirtelProps.StatusPoller statusPoller = new AirtelProps.StatusPoller();
+        statusPoller.setParallelism(1);
+        statusPoller.setMaxPending(2);
+        statusPoller.setBackstopTimer(Duration.ofMinutes(30));
+        airtelProps.setStatusPoller(statusPoller);
+        AirtelProps.Resilience resilience = new AirtelProps.Resilience();
+        resilience.setRetryBackoff(RETRY_BACKOFF);
+        airtelProps.setResilience(resilience);
+        AirtelProps.TransactionState transactionState = new AirtelProps.TransactionState();
+        transactionState.setMaxSize(100);
+        transactionState.setTtl(Duration.ofHours(1));
+        airtelProps.setTransactionState(transactionState);
+        transactionStateStore = new TransactionStateStore(airtelProps);
+        // Not started, so polls only run when the tests call them
+        scheduler = new StatusPollScheduler(new DefaultCamelContext(), producerTemplate,
+            transactionStateStore, airtelProps, new SimpleMeterRegistry());
+        collectionRequestDto = CollectionRequestDto.fromChannelRequest(
+            "{\"payer\":{\"partyIdInfo\":{\"partyIdentifier\":\"+250730000000\"}},"
+                + "\"payee\":{\"partyIdInfo\":{\"partyIdentifier\":\"24322607\"}},"
+                + "\"amount\":{\"amount\":\"20\",\"currency\":\"RWF\"}}",
+            TRANSACTION_ID, Map.of("rwf", "RW"), null);
+    }
+
+    @Test
+    void registeringAScheduledTransactionAgainKeepsItsPoll() {
+        assertTrue(scheduler.register(TRANSACTION_ID, collectionRequestDto, 2, "PT10S", "p"));
+        StatusPollScheduler.ScheduledPoll poll = scheduler.getScheduledPoll(TRANSACTION_ID);
+
+        assertTrue(scheduler.register(TRANSACTION_ID, collectionRequestDto, 5, "PT1M", "p"));
+        assertEquals(poll, scheduler.getScheduledPoll(TRANSACTION_ID));
+    }
+
+    @Test
+    void transactionsPastMaxPendingAreNotRegistered() {
+        assertTrue(scheduler.register("t1", collectionRequestDto, 1, "PT10S", "p"));
+        assertTrue(scheduler.register("t2", collectionRequestDto, 1, "PT10S", "p"));
+
+        assertFalse(scheduler.register("t3", collectionRequestDto, 1, "PT10S", "p"));
+        assertNull(scheduler.getScheduledPoll("t3"));
+    }
+
+    @Test
+    void rejectedPollIsRetriedAfterTheBackoffWithTheSameRetryCount() {
+        respond(result -> result.setException(
+            BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("airtel"))));
+
+        StatusPollScheduler.ScheduledPoll next = pollOnce(2, "PT10S");
+
+        assertEquals(2, next.retryCount());
+        assertEquals("PT10S", next.timer());
+        assertTrue(next.getDelay(TimeUnit.SECONDS) > RETRY_BACKOFF.getSeconds() - 5);
+    }
+
+    @Test
+    void pendingTransactionIsPolledAgainAfterTheNextTimer() {
+        respond(result -> {
+            result.setProperty(IS_TRANSACTION_PENDING, true);
+            result.setProperty(TIMER, "PT20S");
+        });
+
+        StatusPollScheduler.ScheduledPoll next = pollOnce(2, "PT10S");
+
+        assertEquals(3, next.retryCount());
+        assertEquals("PT20S", next.timer());
+        assertTrue(next.getDelay(TimeUnit.SECONDS) > 15);
+    }
+
+    @Test
+    void finalResultRemovesTheTransaction() {
+        respond(result -> result.setProperty(IS_TRANSACTION_PENDING, false));
+
+        scheduler.register(TRANSACTION_ID, collectionRequestDto, 2, "PT10S", "p");
+        scheduler.poll(scheduler.getScheduledPoll(TRANSACTION_ID));
+
+        assertNull(scheduler.getScheduledPoll(TRANSACTION_ID));
+    }
+
+    @Test
+    void pollThatCantBeHandledRemovesTheTransaction() {
+        respond(result -> result.setProperty(IS_TRANSACTION_PENDING, true));
+
+        scheduler.register(TRANSACTION_ID, collectionRequestDto, 2, "PT10S", "p");
+        scheduler.poll(scheduler.getScheduledPoll(TRANSACTION_ID));
+
+        assertNull(scheduler.getScheduledPoll(TRANSACTION_ID));
+    }
+
+    @Test
+    void settledTransactionIsRemovedWithoutPolling() {
+        scheduler.register(TRANSACTION_ID, collectionRequestDto, 2, "PT10S", "p");
+        transactionStateStore.record(TRANSACTION_ID,
+            new TransactionOutcome(false, "MP210603.1234.L06941", null, null, null, "{}"));
+
+        scheduler.poll(scheduler.getScheduledPoll(TRANSACTION_ID));
+
+        assertNull(scheduler.getScheduledPoll(TRANSACTION_ID));
+        verify(producerTemplate, never()).send(eq(ROUTE), any(Exchange.class));
+    }
+
+    private void respond(Consumer<Exchange> result) {
+        when(producerTemplate.send(eq(ROUTE), any(Exchange.class))).thenAnswer(invocation -> {
+            Exchange exchange = invocation.getArgument(1);
+            result.accept(exchange);
+            return exchange;
+        });
+    }
+
+    private StatusPollScheduler.ScheduledPoll pollOnce(int retryCount, String timer) {
+        scheduler.register(TRANSACTION_ID, collectionRequestDto, retryCount, timer, "p");
+        scheduler.poll(scheduler.getScheduledPoll(TRANSACTION_ID));
+        StatusPollScheduler.ScheduledPoll next = scheduler.getScheduledPoll(TRANSACTION_ID);
+        assertNotNull(next);
+        return next;
+    }
+}